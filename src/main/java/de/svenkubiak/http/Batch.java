@@ -0,0 +1,150 @@
+package de.svenkubiak.http;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiConsumer;
+import java.util.function.ObjIntConsumer;
+
+public class Batch {
+    private static final String INTERRUPTED_MESSAGE = "Interrupted while waiting for a free slot; request was not sent";
+    private static final int DEFAULT_MAX_IN_FLIGHT = 64;
+    private final List<Http> requests;
+    private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+    private int maxInFlightPerHost = Integer.MAX_VALUE;
+
+    private Batch(Collection<Http> requests) {
+        Objects.requireNonNull(requests, "requests can not be null");
+        this.requests = List.copyOf(requests);
+    }
+
+    /**
+     * Creates a new batch of independent requests which are executed concurrently
+     * on virtual threads with at most {@value #DEFAULT_MAX_IN_FLIGHT} requests in flight
+     * and no limit per host
+     *
+     * @param requests The requests to execute; must not contain null
+     * @return The Batch instance
+     */
+    public static Batch of(Collection<Http> requests) {
+        return new Batch(requests);
+    }
+
+    /**
+     * Sets the maximum number of requests in flight across the whole batch
+     *
+     * @param maxInFlight The maximum number of concurrent requests; must be positive
+     * @return The Batch instance
+     * @throws IllegalArgumentException if {@code maxInFlight} is zero or negative
+     */
+    public Batch withMaxInFlight(int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+        this.maxInFlight = maxInFlight;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of requests in flight to the same origin (scheme, host and port)
+     *
+     * @param maxInFlightPerHost The maximum number of concurrent requests per origin; must be positive
+     * @return The Batch instance
+     * @throws IllegalArgumentException if {@code maxInFlightPerHost} is zero or negative
+     */
+    public Batch withMaxInFlightPerHost(int maxInFlightPerHost) {
+        if (maxInFlightPerHost <= 0) {
+            throw new IllegalArgumentException("maxInFlightPerHost must be positive");
+        }
+        this.maxInFlightPerHost = maxInFlightPerHost;
+        return this;
+    }
+
+    /**
+     * Executes all requests and blocks until every request has completed
+     *
+     * @return The results in the same order as the requests of this batch
+     */
+    public List<Result> send() {
+        var results = new Result[requests.size()];
+        submit((result, index) -> results[index] = result).close();
+
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Executes all requests and passes each result to the given consumer as soon as it
+     * has completed. The consumer is always invoked on the calling thread, one result at a time,
+     * and this method returns once every result has been consumed
+     *
+     * @param consumer The consumer receiving the request and its result in completion order
+     */
+    public void send(BiConsumer<Http, Result> consumer) {
+        Objects.requireNonNull(consumer, "consumer can not be null");
+
+        var results = new Result[requests.size()];
+        var completed = new LinkedBlockingQueue<Integer>();
+        var executor = submit((result, index) -> {
+            results[index] = result;
+            completed.add(index);
+        });
+
+        try {
+            for (int i = 0; i < results.length; i++) {
+                int index = completed.take();
+                consumer.accept(requests.get(index), results[index]);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        } finally {
+            executor.close();
+        }
+    }
+
+    private ExecutorService submit(ObjIntConsumer<Result> onResult) {
+        var inFlight = new Semaphore(maxInFlight);
+        Map<String, Semaphore> inFlightPerHost = new ConcurrentHashMap<>();
+        var executor = Executors.newVirtualThreadPerTaskExecutor();
+
+        for (int i = 0; i < requests.size(); i++) {
+            int index = i;
+            Http request = requests.get(i);
+            executor.execute(() -> {
+                var host = inFlightPerHost.computeIfAbsent(request.origin(), origin -> new Semaphore(maxInFlightPerHost));
+                onResult.accept(send(request, host, inFlight), index);
+            });
+        }
+
+        return executor;
+    }
+
+    private static Result send(Http request, Semaphore host, Semaphore inFlight) {
+        try {
+            host.acquire();
+            try {
+                inFlight.acquire();
+                try {
+                    return request.send();
+                } finally {
+                    inFlight.release();
+                }
+            } finally {
+                host.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.create().withBody(INTERRUPTED_MESSAGE);
+        } catch (RuntimeException e) {
+            //e.g. an URI or a header rejected by the JDK client; the slot of the request must still be filled
+            return Http.failed(Result.create(), e);
+        }
+    }
+}
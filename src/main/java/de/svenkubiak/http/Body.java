@@ -0,0 +1,101 @@
+package de.svenkubiak.http;
+
+import de.svenkubiak.utils.ByteBufferInputStream;
+import de.svenkubiak.utils.GzipCompressingInputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Supplier;
+
+/**
+ * Request body of an {@link Http} request. The underlying {@link HttpRequest.BodyPublisher}
+ * is created when the request is sent, so file and stream bodies are read from their source
+ * while the request is written instead of being copied into memory upfront
+ */
+final class Body {
+    static final Body EMPTY = new Body(0, HttpRequest.BodyPublishers::noBody, InputStream::nullInputStream);
+    private final long length;
+    private final Source source;
+    private final Supplier<InputStream> stream;
+    private Path file;
+
+    @FunctionalInterface
+    private interface Source {
+        HttpRequest.BodyPublisher publisher() throws IOException;
+    }
+
+    private Body(long length, Source source, Supplier<InputStream> stream) {
+        this.length = length;
+        this.source = source;
+        this.stream = stream;
+    }
+
+    static Body of(String body) {
+        return of(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Body of(byte[] body) {
+        return new Body(body.length, () -> HttpRequest.BodyPublishers.ofByteArray(body), () -> new ByteArrayInputStream(body));
+    }
+
+    static Body of(ByteBuffer body) {
+        var view = body.slice();
+        if (view.hasArray()) {
+            return new Body(view.remaining(),
+                    () -> HttpRequest.BodyPublishers.ofByteArray(view.array(), view.arrayOffset(), view.remaining()),
+                    () -> new ByteBufferInputStream(view));
+        }
+
+        return new Body(view.remaining(),
+                () -> HttpRequest.BodyPublishers.fromPublisher(
+                        HttpRequest.BodyPublishers.ofInputStream(() -> new ByteBufferInputStream(view)), view.remaining()),
+                () -> new ByteBufferInputStream(view));
+    }
+
+    static Body of(Path body) {
+        var file = new Body(-1, () -> HttpRequest.BodyPublishers.ofFile(body), () -> {
+            try {
+                return Files.newInputStream(body);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        file.file = body;
+
+        return file;
+    }
+
+    static Body of(Supplier<InputStream> body) {
+        return new Body(-1, () -> HttpRequest.BodyPublishers.ofInputStream(body), body);
+    }
+
+    boolean isEmpty() {
+        return length == 0;
+    }
+
+    /**
+     * @return The length of the body in bytes, or -1 if unknown until the body is read
+     * @throws IOException if the length of a file body can not be determined
+     */
+    long length() throws IOException {
+        return file == null ? length : Files.size(file);
+    }
+
+    HttpRequest.BodyPublisher publisher() throws IOException {
+        return source.publisher();
+    }
+
+    /**
+     * @return A publisher gzip compressing the body while it is sent
+     */
+    HttpRequest.BodyPublisher gzipPublisher() {
+        return HttpRequest.BodyPublishers.ofInputStream(() -> new GzipCompressingInputStream(stream.get()));
+    }
+}
@@ -0,0 +1,48 @@
+package de.svenkubiak.http;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket refilled by a fraction of a token per request instead of
+ * over time, limiting additional requests (e.g. retries) to a share of the regular traffic
+ */
+final class Budget {
+    private static final long SCALE = 1000;
+    private final AtomicLong tokens;
+    private final long deposit;
+    private final long max;
+
+    Budget(double ratio, int maxTokens) {
+        if (ratio < 0) {
+            throw new IllegalArgumentException("ratio must not be negative");
+        }
+        if (maxTokens <= 0) {
+            throw new IllegalArgumentException("maxTokens must be positive");
+        }
+        this.deposit = Math.round(ratio * SCALE);
+        this.max = maxTokens * SCALE;
+        this.tokens = new AtomicLong(max);
+    }
+
+    void deposit() {
+        if (tokens.get() < max) {
+            tokens.getAndUpdate(current -> Math.min(max, current + deposit));
+        }
+    }
+
+    boolean tryWithdraw() {
+        while (true) {
+            long current = tokens.get();
+            if (current < SCALE) {
+                return false;
+            }
+            if (tokens.compareAndSet(current, current - SCALE)) {
+                return true;
+            }
+        }
+    }
+
+    double available() {
+        return (double) tokens.get() / SCALE;
+    }
+}
@@ -0,0 +1,127 @@
+package de.svenkubiak.http;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the number of requests in flight. Requests exceeding the limit wait in a bounded
+ * queue for at most the queue timeout; requests finding the queue full or timing out are
+ * rejected without being sent. Configure the bulkhead before sharing it between threads.
+ */
+public class Bulkhead {
+    private final int maxInFlight;
+    private final Semaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private int maxQueued;
+    private long queueTimeout = Duration.ofSeconds(10).toNanos();
+
+    private Bulkhead(int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+        this.maxInFlight = maxInFlight;
+        this.maxQueued = maxInFlight;
+        this.permits = new Semaphore(maxInFlight, true);
+    }
+
+    /**
+     * Creates a new bulkhead with a queue of {@code maxInFlight} waiting requests
+     * and a queue timeout of 10 seconds
+     *
+     * @param maxInFlight The maximum number of requests in flight; must be positive
+     * @return The Bulkhead instance
+     * @throws IllegalArgumentException if {@code maxInFlight} is zero or negative
+     */
+    public static Bulkhead of(int maxInFlight) {
+        return new Bulkhead(maxInFlight);
+    }
+
+    /**
+     * Sets the maximum number of requests waiting for a free slot
+     *
+     * @param maxQueued The maximum number of waiting requests; zero rejects every request without a free slot
+     * @return The Bulkhead instance
+     * @throws IllegalArgumentException if {@code maxQueued} is negative
+     */
+    public Bulkhead withMaxQueued(int maxQueued) {
+        if (maxQueued < 0) {
+            throw new IllegalArgumentException("maxQueued must not be negative");
+        }
+        this.maxQueued = maxQueued;
+        return this;
+    }
+
+    /**
+     * Sets the maximum time a request waits in the queue for a free slot
+     *
+     * @param queueTimeout The queue timeout
+     * @return The Bulkhead instance
+     */
+    public Bulkhead withQueueTimeout(Duration queueTimeout) {
+        Objects.requireNonNull(queueTimeout, "queueTimeout can not be null");
+        if (queueTimeout.isNegative()) {
+            throw new IllegalArgumentException("queueTimeout must not be negative");
+        }
+        this.queueTimeout = queueTimeout.toNanos();
+        return this;
+    }
+
+    /**
+     * Waits for a free slot, which must be released via {@link #release()} once the request has completed
+     *
+     * @return True if a slot was acquired, false if the request was rejected
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean acquire() throws InterruptedException {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            rejected.incrementAndGet();
+            return false;
+        }
+
+        try {
+            if (permits.tryAcquire(queueTimeout, TimeUnit.NANOSECONDS)) {
+                return true;
+            }
+        } finally {
+            queued.decrementAndGet();
+        }
+
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    /**
+     * @return The number of requests currently in flight
+     */
+    public int getInFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    /**
+     * @return The number of requests currently waiting for a free slot
+     */
+    public int getQueued() {
+        return queued.get();
+    }
+
+    /**
+     * @return The total number of rejected requests
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+}
@@ -0,0 +1,147 @@
+package de.svenkubiak.http;
+
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded registry of JDK {@link HttpClient} instances. Lookups of existing clients are
+ * lock-free; clients idle for longer than the idle timeout and the least recently used
+ * clients beyond the maximum size are evicted and closed gracefully after a short delay,
+ * letting requests which just obtained the client and in-flight requests complete
+ */
+final class ClientRegistry {
+    private static final long TOUCH_INTERVAL = Duration.ofSeconds(1).toNanos();
+    private static final Duration CLOSE_DELAY = Duration.ofSeconds(1);
+    private final Map<Key, Entry> clients = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweep = new AtomicLong(System.nanoTime());
+    private final Function<Key, HttpClient> factory;
+    private final Executor closer;
+    private volatile int maxClients;
+    private volatile long idleTimeout;
+
+    record Key(boolean followRedirects, boolean disableValidation, InetSocketAddress proxy, Profile profile) {
+        private static final Key[] DEFAULTS = {
+                new Key(false, false, null, null),
+                new Key(false, true, null, null),
+                new Key(true, false, null, null),
+                new Key(true, true, null, null)
+        };
+
+        static Key of(boolean followRedirects, boolean disableValidation, InetSocketAddress proxy, Profile profile) {
+            if (proxy == null && profile == null) {
+                return DEFAULTS[(followRedirects ? 2 : 0) + (disableValidation ? 1 : 0)];
+            }
+
+            return new Key(followRedirects, disableValidation, proxy, profile);
+        }
+    }
+
+    private static final class Entry {
+        private final HttpClient client;
+        private volatile long lastUsed;
+
+        private Entry(HttpClient client, long now) {
+            this.client = client;
+            this.lastUsed = now;
+        }
+
+        private void touch(long now) {
+            if (now - lastUsed > TOUCH_INTERVAL) {
+                lastUsed = now;
+            }
+        }
+    }
+
+    ClientRegistry(Function<Key, HttpClient> factory, Executor executor, int maxClients, Duration idleTimeout) {
+        this.factory = Objects.requireNonNull(factory, "factory can not be null");
+        Objects.requireNonNull(executor, "executor can not be null");
+        this.closer = CompletableFuture.delayedExecutor(CLOSE_DELAY.toMillis(), TimeUnit.MILLISECONDS, executor);
+        configure(maxClients, idleTimeout);
+    }
+
+    void configure(int maxClients, Duration idleTimeout) {
+        Objects.requireNonNull(idleTimeout, "idleTimeout can not be null");
+        if (maxClients <= 0) {
+            throw new IllegalArgumentException("maxClients must be positive");
+        }
+        if (idleTimeout.isNegative() || idleTimeout.isZero()) {
+            throw new IllegalArgumentException("idleTimeout must be positive");
+        }
+        this.maxClients = maxClients;
+        this.idleTimeout = idleTimeout.toNanos();
+    }
+
+    HttpClient get(Key key) {
+        long now = System.nanoTime();
+        var entry = clients.get(key);
+        if (entry != null && !entry.client.isTerminated()) {
+            entry.touch(now);
+            sweep(now);
+            return entry.client;
+        }
+
+        entry = clients.compute(key, (cacheKey, existing) -> {
+            if (existing != null && !existing.client.isTerminated()) {
+                return existing;
+            }
+
+            return new Entry(factory.apply(cacheKey), now);
+        });
+        evict(now);
+
+        return entry.client;
+    }
+
+    int size() {
+        return clients.size();
+    }
+
+    void shutdown() {
+        clients.forEach((key, entry) -> {
+            if (clients.remove(key, entry)) {
+                entry.client.shutdownNow();
+            }
+        });
+    }
+
+    private void sweep(long now) {
+        long next = nextSweep.get();
+        if (now - next >= 0 && nextSweep.compareAndSet(next, now + idleTimeout)) {
+            evict(now);
+        }
+    }
+
+    private void evict(long now) {
+        clients.forEach((key, entry) -> {
+            if (now - entry.lastUsed > idleTimeout) {
+                close(key, entry);
+            }
+        });
+
+        while (clients.size() > maxClients) {
+            var eldest = clients.entrySet()
+                    .stream()
+                    .min(Comparator.comparingLong(candidate -> candidate.getValue().lastUsed));
+            if (eldest.isEmpty()) {
+                return;
+            }
+            close(eldest.get().getKey(), eldest.get().getValue());
+        }
+    }
+
+    private void close(Key key, Entry entry) {
+        if (clients.remove(key, entry)) {
+            closer.execute(entry.client::close);
+        }
+    }
+}
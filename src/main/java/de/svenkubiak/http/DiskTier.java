@@ -0,0 +1,469 @@
+package de.svenkubiak.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpHeaders;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Disk tier of the {@link ResponseCache}. Every URL is stored in a body file and a small metadata
+ * file which are tagged with the same random version. Both are written and synced to temporary files
+ * and atomically moved into place, so a crash never leaves a partial file behind; files left with
+ * different versions by a crash between the two moves are discarded on read. A revalidation only
+ * replaces the metadata file and never rewrites the body. The directory is synced after the moves
+ * where the platform supports it; elsewhere a crash may lose the most recent writes.
+ * Bodies are served from read-only memory mappings. Recency survives restarts via the last
+ * modified time of the body files, which is updated at most once per {@value #TOUCH_INTERVAL} ms.
+ */
+final class DiskTier {
+    private static final int MAGIC = 0x53484332;
+    private static final int PREFIX = Integer.BYTES + Long.BYTES;
+    private static final String SUFFIX = ".entry";
+    private static final String META_SUFFIX = ".meta";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final long TOUCH_INTERVAL = 60_000;
+    private final Map<String, Item> index = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Path directory;
+    private final long maxBytes;
+    private long size;
+
+    private static final class Item {
+        private final long length;
+        private long touched;
+
+        private Item(long length, long touched) {
+            this.length = length;
+            this.touched = touched;
+        }
+    }
+
+    private record Metadata(long version, String key, List<String> vary, int status, long expiresAt, Map<String, List<String>> headers) {}
+
+    /**
+     * Thrown if a file does not hold a valid entry; only such files are deleted on read
+     */
+    private static final class CorruptedFileException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private CorruptedFileException(String message) {
+            super(message);
+        }
+    }
+
+    DiskTier(Path directory, long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive");
+        }
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+
+        try {
+            Files.createDirectories(directory);
+            List<Path> files = new ArrayList<>();
+            try (Stream<Path> stream = Files.list(directory)) {
+                stream.forEach(files::add);
+            }
+
+            List<Path> bodies = new ArrayList<>();
+            for (Path file : files) {
+                var name = file.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX)) {
+                    delete(file);
+                } else if (name.endsWith(SUFFIX)) {
+                    bodies.add(file);
+                }
+            }
+            bodies.sort(Comparator.comparing(DiskTier::lastModified));
+            for (Path file : bodies) {
+                var name = file.getFileName().toString();
+                var base = name.substring(0, name.length() - SUFFIX.length());
+                var meta = directory.resolve(base + META_SUFFIX);
+                if (!Files.exists(meta)) {
+                    delete(file);
+                    continue;
+                }
+                long length = Files.size(file) + Files.size(meta);
+                index.put(base, new Item(length, lastModified(file).toMillis()));
+                size += length;
+            }
+            for (Path file : files) {
+                var name = file.getFileName().toString();
+                if (name.endsWith(META_SUFFIX) && !index.containsKey(name.substring(0, name.length() - META_SUFFIX.length()))) {
+                    delete(file);
+                }
+            }
+            evict();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    long size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    ResponseCache.Entry get(String url, UnaryOperator<String> requestHeaders, long now) {
+        var base = name(url);
+        Item item;
+        boolean touch;
+        lock.lock();
+        try {
+            item = index.get(base);
+            if (item == null) {
+                return null;
+            }
+            touch = now - item.touched >= TOUCH_INTERVAL;
+            if (touch) {
+                item.touched = now;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        var file = directory.resolve(base + SUFFIX);
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            var meta = readMetadata(directory.resolve(base + META_SUFFIX));
+            var prefix = read(channel, 0, PREFIX);
+            if (prefix.getInt() != MAGIC || prefix.getLong() != meta.version()) {
+                throw new CorruptedFileException("Mismatching cache files " + file);
+            }
+            if (!meta.key().equals(ResponseCache.key(url, meta.vary(), requestHeaders))) {
+                return null;
+            }
+
+            var body = channel.map(FileChannel.MapMode.READ_ONLY, PREFIX, channel.size() - PREFIX);
+            if (touch) {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(now));
+            }
+
+            return new ResponseCache.Entry(url, meta.vary(), meta.key(), meta.status(),
+                    HttpHeaders.of(meta.headers(), (headerName, value) -> true), body, meta.expiresAt());
+        } catch (CorruptedFileException | EOFException | NoSuchFileException | IllegalArgumentException e) {
+            remove(base, item);
+            return null;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    void put(ResponseCache.Entry entry) {
+        var base = name(entry.url());
+        var suffix = "." + Thread.currentThread().threadId() + TEMP_SUFFIX;
+        var bodyTemp = directory.resolve(base + SUFFIX + suffix);
+        var metaTemp = directory.resolve(base + META_SUFFIX + suffix);
+        long version = ThreadLocalRandom.current().nextLong();
+
+        try {
+            long length;
+            try (var channel = FileChannel.open(bodyTemp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                var buffers = new ByteBuffer[] {prefix(version), entry.body().duplicate()};
+                while (buffers[1].hasRemaining() || buffers[0].hasRemaining()) {
+                    channel.write(buffers);
+                }
+                channel.force(true);
+                length = channel.size();
+            }
+            length += writeMetadata(metaTemp, entry, version);
+
+            if (length > maxBytes) {
+                delete(bodyTemp);
+                delete(metaTemp);
+                return;
+            }
+
+            lock.lock();
+            try {
+                move(bodyTemp, directory.resolve(base + SUFFIX));
+                try {
+                    move(metaTemp, directory.resolve(base + META_SUFFIX));
+                } catch (IOException e) {
+                    var previous = index.remove(base);
+                    if (previous != null) {
+                        size -= previous.length;
+                    }
+                    delete(base);
+                    throw e;
+                }
+                var previous = index.put(base, new Item(length, System.currentTimeMillis()));
+                size += length - (previous == null ? 0 : previous.length);
+                evict();
+            } finally {
+                lock.unlock();
+            }
+            sync(directory);
+        } catch (IOException e) {
+            delete(bodyTemp);
+            delete(metaTemp);
+        }
+    }
+
+    /**
+     * Replaces the metadata of the stored response, e.g. after a revalidation, without rewriting
+     * its body. The whole entry is written if no body of the same response is stored
+     */
+    void update(ResponseCache.Entry entry) {
+        var base = name(entry.url());
+        var meta = directory.resolve(base + META_SUFFIX);
+        var temp = directory.resolve(base + META_SUFFIX + "." + Thread.currentThread().threadId() + TEMP_SUFFIX);
+
+        Item item;
+        lock.lock();
+        try {
+            item = index.get(base);
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            var stored = item == null ? null : readMetadata(meta);
+            if (stored == null || !stored.key().equals(entry.key())) {
+                put(entry);
+                return;
+            }
+
+            long length = writeMetadata(temp, entry, stored.version());
+            lock.lock();
+            try {
+                if (index.get(base) != item) {
+                    delete(temp);
+                    return;
+                }
+                long previous = Files.size(meta);
+                move(temp, meta);
+                index.put(base, new Item(item.length - previous + length, item.touched));
+                size += length - previous;
+                evict();
+            } finally {
+                lock.unlock();
+            }
+            sync(directory);
+        } catch (IOException | RuntimeException e) {
+            delete(temp);
+            put(entry);
+        }
+    }
+
+    void remove(String url) {
+        var base = name(url);
+        lock.lock();
+        try {
+            remove(base, index.get(base));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void clear() {
+        lock.lock();
+        try {
+            index.keySet().forEach(this::delete);
+            index.clear();
+            size = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the files of the given item unless they were replaced in the meantime
+     */
+    private void remove(String base, Item item) {
+        lock.lock();
+        try {
+            if (item != null && index.get(base) == item) {
+                index.remove(base);
+                size -= item.length;
+                delete(base);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evict() {
+        for (Iterator<Map.Entry<String, Item>> iterator = index.entrySet().iterator(); size > maxBytes && iterator.hasNext();) {
+            var eldest = iterator.next();
+            size -= eldest.getValue().length;
+            delete(eldest.getKey());
+            iterator.remove();
+        }
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        if (length < 0 || position + length > channel.size()) {
+            throw new CorruptedFileException("Truncated cache file");
+        }
+
+        var buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new CorruptedFileException("Truncated cache file");
+            }
+        }
+
+        return buffer.flip();
+    }
+
+    private static ByteBuffer prefix(long version) {
+        return ByteBuffer.allocate(PREFIX).putInt(MAGIC).putLong(version).flip();
+    }
+
+    private static long writeMetadata(Path file, ResponseCache.Entry entry, long version) throws IOException {
+        var meta = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(meta)) {
+            out.writeInt(MAGIC);
+            out.writeLong(version);
+            writeString(out, entry.key());
+            out.writeInt(entry.vary().size());
+            for (String header : entry.vary()) {
+                writeString(out, header);
+            }
+            out.writeInt(entry.status());
+            out.writeLong(entry.expiresAt());
+            var headers = entry.headers().map();
+            out.writeInt(headers.size());
+            for (var header : headers.entrySet()) {
+                writeString(out, header.getKey());
+                out.writeInt(header.getValue().size());
+                for (String value : header.getValue()) {
+                    writeString(out, value);
+                }
+            }
+        }
+
+        try (var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            var buffer = ByteBuffer.wrap(meta.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+            return channel.size();
+        }
+    }
+
+    private static Metadata readMetadata(Path file) throws IOException {
+        try (var in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new CorruptedFileException("Invalid cache file " + file);
+            }
+
+            long version = in.readLong();
+            var key = readString(in);
+            var vary = new ArrayList<String>();
+            for (int i = in.readInt(); i > 0; i--) {
+                vary.add(readString(in));
+            }
+            int status = in.readInt();
+            long expiresAt = in.readLong();
+            Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            for (int i = in.readInt(); i > 0; i--) {
+                var headerName = readString(in);
+                var values = new ArrayList<String>();
+                for (int j = in.readInt(); j > 0; j--) {
+                    values.add(readString(in));
+                }
+                headers.put(headerName, values);
+            }
+
+            return new Metadata(version, key, vary, status, expiresAt, headers);
+        }
+    }
+
+    private static String name(String url) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Makes a completed move durable; not every platform can open a directory for syncing
+     */
+    private static void sync(Path directory) {
+        try (var channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            //Intentionally left blank
+        }
+    }
+
+    private void delete(String base) {
+        delete(directory.resolve(base + SUFFIX));
+        delete(directory.resolve(base + META_SUFFIX));
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            //Intentionally left blank
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > in.available()) {
+            throw new CorruptedFileException("Truncated cache file");
+        }
+
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+}
@@ -3,46 +3,318 @@ package de.svenkubiak.http;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Lock-free circuit breaker. The failsafe opens after more than {@code threshold - 1}
+ * consecutive errors, or when the failure rate over a sliding window of calls exceeds the
+ * configured rate. Once the delay has passed, the failsafe is half-open and admits a limited
+ * number of probe requests: a successful probe closes it, a failed probe opens it again.
+ * Outcomes of requests admitted before the failsafe last opened or closed are ignored.
+ * Configure the failsafe before sharing it between threads.
+ */
 public class Failsafe {
+    private static final int CLOSED = 0;
+    private static final int OPEN = 1;
+    private static final int HALF_OPEN = 2;
+    private static final int GENERATIONS = Integer.MAX_VALUE >>> 1;
+    static final int BLOCKED = -1;
+    private final AtomicReference<State> state = new AtomicReference<>(State.INITIAL);
     private final int threshold;
-    private final Duration delay;
-    private int count = 1;
-    private LocalDateTime until;
+    private final long delay;
+    private int maxProbes = 1;
+    private double failureRate;
+    private AtomicIntegerArray window;
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicInteger failures = new AtomicInteger();
+
+    private record State(int phase, int count, long until, int probes, int generation) {
+        private static final State INITIAL = new State(CLOSED, 1, 0, 0, 0);
+    }
 
     public Failsafe(int threshold, Duration delay) {
         if (threshold <= 0) {
             throw new IllegalArgumentException("threshold must be positive");
         }
         this.threshold = threshold;
-        this.delay = Objects.requireNonNull(delay, "delay can not be null");
+        this.delay = Objects.requireNonNull(delay, "delay can not be null").toNanos();
     }
 
     public static Failsafe of(int threshold, Duration timeout) {
         return new Failsafe(threshold, timeout);
     }
 
-    public synchronized boolean isActive() {
-        return until != null && LocalDateTime.now().isBefore(until);
+    /**
+     * Sets the number of probe requests admitted while the failsafe is half-open. Defaults to 1
+     *
+     * @param maxProbes The maximum number of concurrent probes; must be positive
+     * @return The Failsafe instance
+     * @throws IllegalArgumentException if {@code maxProbes} is zero or negative
+     */
+    public Failsafe withProbes(int maxProbes) {
+        if (maxProbes <= 0) {
+            throw new IllegalArgumentException("maxProbes must be positive");
+        }
+        this.maxProbes = maxProbes;
+        return this;
+    }
+
+    /**
+     * Additionally opens the failsafe when the share of errors among the last {@code windowSize}
+     * calls reaches the given rate, regardless of whether the errors were consecutive.
+     * The rate is only evaluated once at least {@code windowSize} calls have been recorded
+     *
+     * @param failureRate The failure rate between 0 (exclusive) and 1 (inclusive)
+     * @param windowSize The number of most recent calls to consider; must be positive
+     * @return The Failsafe instance
+     * @throws IllegalArgumentException if {@code failureRate} or {@code windowSize} is out of range
+     */
+    public Failsafe withFailureRate(double failureRate, int windowSize) {
+        if (failureRate <= 0 || failureRate > 1) {
+            throw new IllegalArgumentException("failureRate must be greater than 0 and at most 1");
+        }
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("windowSize must be positive");
+        }
+        this.failureRate = failureRate;
+        this.window = new AtomicIntegerArray(windowSize);
+        return this;
+    }
+
+    /**
+     * Checks if requests are currently blocked. This only reads the state of the failsafe and
+     * never admits a probe request, so it can be used for monitoring
+     *
+     * @return True if the request must not be sent, false otherwise
+     */
+    public boolean isActive() {
+        var current = state.get();
+        return current.phase() != CLOSED
+                && System.nanoTime() - current.until() < 0
+                && (current.phase() == OPEN || current.probes() >= maxProbes);
+    }
+
+    /**
+     * Decides whether a request may be sent. The returned admission must be passed to
+     * {@link #success(int)} or {@link #error(int)} once the request has completed, or to
+     * {@link #release(int)} if it was not sent after all
+     *
+     * @return {@link #BLOCKED}, or the admission of the request
+     */
+    int admit() {
+        while (true) {
+            var current = state.get();
+            if (current.phase() == CLOSED) {
+                return admission(current.generation(), false);
+            }
+
+            long now = System.nanoTime();
+            if (now - current.until() < 0) {
+                if (current.phase() == OPEN || current.probes() >= maxProbes) {
+                    return BLOCKED;
+                }
+                if (state.compareAndSet(current, new State(HALF_OPEN, current.count(), current.until(), current.probes() + 1, current.generation()))) {
+                    return admission(current.generation(), true);
+                }
+            } else if (state.compareAndSet(current, new State(HALF_OPEN, current.count(), now + delay, 1, current.generation()))) {
+                return admission(current.generation(), true);
+            }
+        }
+    }
+
+    /**
+     * @param admission An admission returned by {@link #admit()}
+     * @return True if the request was admitted as a probe while the failsafe was half-open
+     */
+    static boolean isProbe(int admission) {
+        return admission != BLOCKED && (admission & 1) == 1;
     }
 
-    public synchronized void error() {
-        count = count + 1;
-        if (count > threshold) {
-            until = LocalDateTime.now().plus(delay);
+    /**
+     * Returns the probe slot of a request admitted as a probe which was not sent after all,
+     * e.g. because a rate limiter or bulkhead rejected it
+     *
+     * @param admission The admission returned by {@link #admit()}
+     */
+    void release(int admission) {
+        if (!isProbe(admission)) {
+            return;
+        }
+
+        while (true) {
+            var current = state.get();
+            if (current.phase() != HALF_OPEN || current.probes() == 0 || current.generation() != generation(admission)) {
+                return;
+            }
+            if (state.compareAndSet(current, new State(HALF_OPEN, current.count(), current.until(), current.probes() - 1, current.generation()))) {
+                return;
+            }
         }
     }
 
-    public synchronized void success() {
-        count = 1;
-        until = null;
+    /**
+     * Reports a failed request admitted via {@link #admit()}. Outcomes of requests admitted before
+     * the failsafe last opened or closed are ignored, and while half-open only a failed probe opens
+     * the failsafe again
+     *
+     * @param admission The admission returned by {@link #admit()}
+     */
+    void error(int admission) {
+        var current = state.get();
+        if (!counts(current, admission)) {
+            return;
+        }
+
+        boolean rateExceeded = current.phase() == CLOSED && record(1);
+        while (true) {
+            int count = current.count() + 1;
+            var next = current.phase() == HALF_OPEN || count > threshold || rateExceeded
+                    ? new State(OPEN, count, System.nanoTime() + delay, 0, next(current.generation()))
+                    : new State(CLOSED, count, 0, 0, current.generation());
+            if (state.compareAndSet(current, next)) {
+                return;
+            }
+
+            current = state.get();
+            if (!counts(current, admission)) {
+                return;
+            }
+        }
     }
 
-    public synchronized int getCount() {
-        return count;
+    /**
+     * Reports a successful request admitted via {@link #admit()}. Outcomes of requests admitted before
+     * the failsafe last opened or closed are ignored, and while half-open only a successful probe closes
+     * the failsafe. A closed failsafe without preceding errors is not written to
+     *
+     * @param admission The admission returned by {@link #admit()}
+     */
+    void success(int admission) {
+        var current = state.get();
+        if (!counts(current, admission)) {
+            return;
+        }
+
+        if (current.phase() == CLOSED) {
+            recordSuccess();
+        }
+        while (current.phase() != CLOSED || current.count() != 1) {
+            var next = current.phase() == CLOSED ? new State(CLOSED, 1, 0, 0, current.generation()) : closed(current);
+            if (state.compareAndSet(current, next)) {
+                if (current.phase() != CLOSED) {
+                    resetWindow();
+                }
+                return;
+            }
+
+            current = state.get();
+            if (!counts(current, admission)) {
+                return;
+            }
+        }
     }
 
-    public synchronized LocalDateTime getUntil() {
-        return until;
+    /**
+     * Reports a failed request which was not admitted via {@link #admit()}, e.g. when the failsafe
+     * is used without {@link Http}. Opens the failsafe again if it is not closed
+     */
+    public void error() {
+        while (true) {
+            var current = state.get();
+            if (current.phase() == CLOSED) {
+                error(admission(current.generation(), false));
+                return;
+            }
+            if (state.compareAndSet(current, new State(OPEN, current.count() + 1, System.nanoTime() + delay, 0, next(current.generation())))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reports a successful request which was not admitted via {@link #admit()}, e.g. when the failsafe
+     * is used without {@link Http}. Closes the failsafe
+     */
+    public void success() {
+        while (true) {
+            var current = state.get();
+            if (current.phase() == CLOSED) {
+                success(admission(current.generation(), false));
+                return;
+            }
+            if (state.compareAndSet(current, closed(current))) {
+                resetWindow();
+                return;
+            }
+        }
+    }
+
+    public int getCount() {
+        return state.get().count();
+    }
+
+    public LocalDateTime getUntil() {
+        var current = state.get();
+        if (current.phase() == CLOSED) {
+            return null;
+        }
+
+        return LocalDateTime.now().plusNanos(current.until() - System.nanoTime());
+    }
+
+    private static int admission(int generation, boolean probe) {
+        return generation << 1 | (probe ? 1 : 0);
+    }
+
+    private static int generation(int admission) {
+        return admission >>> 1;
+    }
+
+    private static int next(int generation) {
+        return (generation + 1) & GENERATIONS;
+    }
+
+    private static State closed(State current) {
+        return new State(CLOSED, 1, 0, 0, next(current.generation()));
+    }
+
+    private static boolean counts(State current, int admission) {
+        if (admission == BLOCKED || current.generation() != generation(admission)) {
+            return false;
+        }
+
+        return current.phase() == CLOSED || current.phase() == HALF_OPEN && isProbe(admission);
+    }
+
+    private void recordSuccess() {
+        var outcomes = window;
+        if (outcomes != null && (failures.get() != 0 || calls.get() < outcomes.length())) {
+            record(0);
+        }
+    }
+
+    private boolean record(int failure) {
+        var outcomes = window;
+        if (outcomes == null) {
+            return false;
+        }
+
+        long call = calls.getAndIncrement();
+        int previous = outcomes.getAndSet((int) (call % outcomes.length()), failure);
+        int failed = failures.addAndGet(failure - previous);
+
+        return call + 1 >= outcomes.length() && failed >= failureRate * outcomes.length();
+    }
+
+    private void resetWindow() {
+        var outcomes = window;
+        if (outcomes != null) {
+            for (int i = 0; i < outcomes.length(); i++) {
+                failures.addAndGet(-outcomes.getAndSet(i, 0));
+            }
+        }
     }
 }
@@ -0,0 +1,167 @@
+package de.svenkubiak.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Hedging policy for idempotent requests. If no response has arrived within the hedging delay,
+ * a duplicate request is sent and whichever response arrives first is used; the other request
+ * is cancelled and its response discarded. The delay is either fixed or follows a percentile of
+ * the observed response times. Every request deposits a fraction of a token into the hedging
+ * budget and every duplicate withdraws a whole token, capping the extra load hedging may add.
+ * Reuse one instance for all requests to the same service to share observations and budget.
+ */
+public class Hedge {
+    private static final int WINDOW_SIZE = 256;
+    private static final int MIN_SAMPLES = 32;
+    private static final int REFRESH_INTERVAL = 32;
+    private static final double DEFAULT_BUDGET_RATIO = 0.1;
+    private static final int DEFAULT_BUDGET_TOKENS = 10;
+    private final double percentile;
+    private final AtomicLongArray samples;
+    private final AtomicLong recorded = new AtomicLong();
+    private volatile long delay;
+    private Budget budget = new Budget(DEFAULT_BUDGET_RATIO, DEFAULT_BUDGET_TOKENS);
+
+    private Hedge(double percentile, Duration delay) {
+        Objects.requireNonNull(delay, "delay can not be null");
+        if (delay.isNegative()) {
+            throw new IllegalArgumentException("delay must not be negative");
+        }
+        this.percentile = percentile;
+        this.samples = percentile > 0 ? new AtomicLongArray(WINDOW_SIZE) : null;
+        this.delay = delay.toNanos();
+    }
+
+    /**
+     * Creates a new hedging policy sending a duplicate request after a fixed delay, with a
+     * budget allowing duplicates for 10% of the requests plus a reserve of 10 duplicates
+     *
+     * @param delay The time to wait for a response before sending a duplicate request
+     * @return The Hedge instance
+     */
+    public static Hedge after(Duration delay) {
+        return new Hedge(0, delay);
+    }
+
+    /**
+     * Creates a new hedging policy sending a duplicate request once the given percentile of the
+     * recently observed response times has passed, with a budget allowing duplicates for 10% of
+     * the requests plus a reserve of 10 duplicates
+     *
+     * @param percentile The percentile between 0 and 1 (both exclusive), e.g. 0.95
+     * @param initialDelay The delay used until enough response times have been observed
+     * @return The Hedge instance
+     * @throws IllegalArgumentException if {@code percentile} is out of range
+     */
+    public static Hedge atPercentile(double percentile, Duration initialDelay) {
+        if (percentile <= 0 || percentile >= 1) {
+            throw new IllegalArgumentException("percentile must be between 0 and 1");
+        }
+        return new Hedge(percentile, initialDelay);
+    }
+
+    /**
+     * Sets the hedging budget
+     *
+     * @param ratio The fraction of a duplicate earned by every request, e.g. 0.05 for at most 5% extra load
+     * @param maxTokens The maximum number of duplicates which can be saved up; must be positive
+     * @return The Hedge instance
+     */
+    public Hedge withBudget(double ratio, int maxTokens) {
+        this.budget = new Budget(ratio, maxTokens);
+        return this;
+    }
+
+    /**
+     * @return The current time to wait for a response before sending a duplicate request
+     */
+    public Duration delay() {
+        return Duration.ofNanos(delay);
+    }
+
+    HttpResponse<InputStream> send(HttpClient httpClient, HttpRequest request, RateLimiter rateLimiter) throws IOException, InterruptedException {
+        budget.deposit();
+
+        var winner = new CompletableFuture<HttpResponse<InputStream>>();
+        var pending = new AtomicInteger(1);
+        var primary = send(httpClient, request, winner, pending);
+        CompletableFuture<HttpResponse<InputStream>> secondary = null;
+        try {
+            try {
+                return winner.get(delay, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                if (budget.tryWithdraw() && (rateLimiter == null || rateLimiter.tryAcquire())) {
+                    pending.incrementAndGet();
+                    secondary = send(httpClient, request, winner, pending);
+                }
+            }
+            return winner.get();
+        } catch (ExecutionException e) {
+            var cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null ? e.getCause().getCause() : e.getCause();
+            throw cause instanceof IOException ioException ? ioException : new IOException(cause);
+        } finally {
+            primary.cancel(true);
+            if (secondary != null) {
+                secondary.cancel(true);
+            }
+        }
+    }
+
+    private CompletableFuture<HttpResponse<InputStream>> send(HttpClient httpClient, HttpRequest request,
+            CompletableFuture<HttpResponse<InputStream>> winner, AtomicInteger pending) {
+        long start = System.nanoTime();
+        var future = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+        future.whenComplete((response, e) -> {
+            if (e == null) {
+                record(System.nanoTime() - start);
+                if (!winner.complete(response)) {
+                    discard(response);
+                }
+            } else if (pending.decrementAndGet() == 0) {
+                winner.completeExceptionally(e);
+            }
+        });
+
+        return future;
+    }
+
+    void record(long nanos) {
+        if (samples == null) {
+            return;
+        }
+
+        long count = recorded.getAndIncrement();
+        samples.set((int) (count % WINDOW_SIZE), nanos);
+        if (count + 1 >= MIN_SAMPLES && (count + 1) % REFRESH_INTERVAL == 0) {
+            var sorted = new long[(int) Math.min(count + 1, WINDOW_SIZE)];
+            for (int i = 0; i < sorted.length; i++) {
+                sorted[i] = samples.get(i);
+            }
+            Arrays.sort(sorted);
+            delay = sorted[Math.max(0, (int) Math.ceil(percentile * sorted.length) - 1)];
+        }
+    }
+
+    private static void discard(HttpResponse<InputStream> response) {
+        try {
+            response.body().close();
+        } catch (IOException e) {
+            //Intentionally left blank
+        }
+    }
+}
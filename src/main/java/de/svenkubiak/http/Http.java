@@ -1,5 +1,7 @@
 package de.svenkubiak.http;
 
+import de.svenkubiak.utils.CountingInputStream;
+import de.svenkubiak.utils.LimitedInputStream;
 import de.svenkubiak.utils.Utils;
 
 import java.io.IOException;
@@ -10,34 +12,78 @@ import java.net.URISyntaxException;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 
 import static java.time.temporal.ChronoUnit.SECONDS;
 
 public class Http {
-    private static final Object CLIENT_LOCK = new Object();
-    private static final Map<String, HttpClient> HTTP_CLIENTS = new ConcurrentHashMap<>(8, 0.9f, 1);
     private static final Executor EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+    private static final int DEFAULT_MAX_CLIENTS = 32;
+    private static final Duration DEFAULT_CLIENT_IDLE_TIMEOUT = Duration.ofMinutes(5);
+    private static final Registry<Failsafe> FAILSAFES = new Registry<>();
+    private static final Registry<RateLimiter> RATE_LIMITERS = new Registry<>();
+    private static final Registry<Bulkhead> BULKHEADS = new Registry<>();
+    private static final Map<Coalescing, CompletableFuture<Result>> IN_FLIGHT = new ConcurrentHashMap<>();
+    private static final Map<String, Profile> PROFILES = new ConcurrentHashMap<>();
+    private static final ClientRegistry CLIENTS = new ClientRegistry(Http::newHttpClient, EXECUTOR, DEFAULT_MAX_CLIENTS, DEFAULT_CLIENT_IDLE_TIMEOUT);
+    private static final Set<String> IDEMPOTENT_METHODS = Set.of("GET", "HEAD", "PUT", "DELETE", "OPTIONS", "TRACE");
+    private static final String ACCEPT_ENCODING = "gzip, deflate";
+    private static final long DEFAULT_COMPRESSION_THRESHOLD = 1024;
     private static final long DEFAULT_MAX_RESPONSE_SIZE = 64L * 1024 * 1024; //Default maximum response body size: 64 MiB.
     private final String method;
     private final Map<String, String> headers = new HashMap<>();
     private String url;
-    private String body = "";
+    private String origin;
+    private Body body = Body.EMPTY;
     private Duration timeout = Duration.of(10, SECONDS);
     private HttpClient.Version version = HttpClient.Version.HTTP_2;
     private InetSocketAddress proxy;
+    private Profile profile;
     private boolean followRedirects;
     private boolean disableValidation;
     private boolean binaryResponse;
+    private boolean streamResponse;
+    private boolean acceptCompression;
+    private long compressionThreshold = -1;
+    private Path file;
     private long maxResponseSize = DEFAULT_MAX_RESPONSE_SIZE;
     private Failsafe failsafe;
+    private int sharedFailsafeThreshold;
+    private Duration sharedFailsafeDelay;
+    private String sharedFailsafeKey;
+    private Retry retry;
+    private Hedge hedge;
+    private RateLimiter rateLimiter;
+    private RateLimiter sharedRateLimiter;
+    private String sharedRateLimiterKey;
+    private Bulkhead bulkhead;
+    private Bulkhead sharedBulkhead;
+    private String sharedBulkheadKey;
+    private ResponseCache cache;
+    private boolean coalesce;
+    private Metrics metrics;
+
+    private record Coalescing(String method, String url, Map<String, String> headers, ClientRegistry.Key client,
+                              Duration timeout, HttpClient.Version version, boolean binaryResponse,
+                              boolean acceptCompression, long maxResponseSize) {}
 
     private Http(String url, String method) {
         this.url = Objects.requireNonNull(url, "url can not be null");
@@ -104,6 +150,51 @@ public class Http {
         return new Http(url, "DELETE");
     }
 
+    private static Http head(String url) {
+        return new Http(url, "HEAD");
+    }
+
+    /**
+     * Executes the given requests concurrently on virtual threads and blocks until
+     * all of them have completed. Use {@link Batch} to limit the number of requests
+     * in flight or to consume results as they complete
+     *
+     * @param requests The requests to execute
+     * @return The results in the same order as the given requests
+     */
+    public static List<Result> sendAll(Collection<Http> requests) {
+        return Batch.of(requests).send();
+    }
+
+    /**
+     * Establishes connections to the given URLs concurrently using the default settings,
+     * see {@link #prewarm()}
+     *
+     * @param urls The URLs to connect to
+     * @return The outcome per URL in the same order as the given URLs
+     */
+    public static List<Warmup> prewarm(String... urls) {
+        Objects.requireNonNull(urls, "urls can not be null");
+        return prewarm(Arrays.stream(urls).map(Http::head).toList());
+    }
+
+    /**
+     * Establishes connections to the URLs of the given requests concurrently on virtual threads,
+     * each in the cached client matching the settings of the request, see {@link #prewarm()}
+     *
+     * @param requests The requests whose targets and settings to use
+     * @return The outcome per request in the same order as the given requests
+     */
+    public static List<Warmup> prewarm(Collection<Http> requests) {
+        Objects.requireNonNull(requests, "requests can not be null");
+        return requests.stream()
+                .map(request -> CompletableFuture.supplyAsync(request::prewarm, EXECUTOR))
+                .toList()
+                .stream()
+                .map(CompletableFuture::join)
+                .toList();
+    }
+
     /**
      * Shuts down all cached JDK {@link HttpClient} instances held by this library.
      * <p>
@@ -112,10 +203,117 @@ public class Http {
      * HTTP traffic for all simple-http users in that JVM.
      */
     public static void shutdown() {
-        synchronized (CLIENT_LOCK) {
-            HTTP_CLIENTS.values().forEach(HttpClient::shutdownNow);
-            HTTP_CLIENTS.clear();
+        CLIENTS.shutdown();
+    }
+
+    /**
+     * Registers the given profile JVM-wide under its name, replacing any profile
+     * previously registered under the same name. Requests select the profile via
+     * {@link #withProfile(String)}
+     *
+     * @param profile The profile to register
+     */
+    public static void register(Profile profile) {
+        Objects.requireNonNull(profile, "profile can not be null");
+        PROFILES.put(profile.name(), profile);
+    }
+
+    /**
+     * Returns the profile registered under the given name
+     *
+     * @param name The name of the profile
+     * @return The registered profile
+     * @throws IllegalArgumentException if no profile is registered under the given name
+     */
+    public static Profile profile(String name) {
+        Objects.requireNonNull(name, "name can not be null");
+        var profile = PROFILES.get(name);
+        if (profile == null) {
+            throw new IllegalArgumentException("No profile registered with name " + name);
         }
+
+        return profile;
+    }
+
+    /**
+     * Returns the shared failsafe registered under the given key, see {@link #withSharedFailsafe(String, int, Duration)}
+     *
+     * @param key The key of the failsafe, e.g. the origin {@code https://example.com:443}
+     * @return The shared failsafe or null if none is registered under the given key
+     */
+    public static Failsafe sharedFailsafe(String key) {
+        Objects.requireNonNull(key, "key can not be null");
+        return FAILSAFES.get(key);
+    }
+
+    /**
+     * Removes the shared failsafe registered under the given key, so the next request
+     * using it starts with a closed failsafe
+     *
+     * @param key The key of the failsafe
+     */
+    public static void removeSharedFailsafe(String key) {
+        Objects.requireNonNull(key, "key can not be null");
+        FAILSAFES.remove(key);
+    }
+
+    /**
+     * Returns the shared rate limiter registered under the given key, see {@link #withSharedRateLimiter(String, RateLimiter)}
+     *
+     * @param key The key of the rate limiter, e.g. the origin {@code https://example.com:443}
+     * @return The shared rate limiter or null if none is registered under the given key
+     */
+    public static RateLimiter sharedRateLimiter(String key) {
+        Objects.requireNonNull(key, "key can not be null");
+        return RATE_LIMITERS.get(key);
+    }
+
+    /**
+     * Removes the shared rate limiter registered under the given key, so the next request
+     * using it registers a new rate limiter
+     *
+     * @param key The key of the rate limiter
+     */
+    public static void removeSharedRateLimiter(String key) {
+        Objects.requireNonNull(key, "key can not be null");
+        RATE_LIMITERS.remove(key);
+    }
+
+    /**
+     * Returns the shared bulkhead registered under the given key, see {@link #withSharedBulkhead(String, Bulkhead)}
+     *
+     * @param key The key of the bulkhead, e.g. the origin {@code https://example.com:443}
+     * @return The shared bulkhead or null if none is registered under the given key
+     */
+    public static Bulkhead sharedBulkhead(String key) {
+        Objects.requireNonNull(key, "key can not be null");
+        return BULKHEADS.get(key);
+    }
+
+    /**
+     * Removes the shared bulkhead registered under the given key, so the next request
+     * using it registers a new bulkhead
+     *
+     * @param key The key of the bulkhead
+     */
+    public static void removeSharedBulkhead(String key) {
+        Objects.requireNonNull(key, "key can not be null");
+        BULKHEADS.remove(key);
+    }
+
+    /**
+     * Configures the JVM-wide cache of JDK {@link HttpClient} instances. A client is cached
+     * per combination of redirect, validation, proxy and profile settings. Clients unused for longer
+     * than the idle timeout and the least recently used clients beyond the maximum are
+     * closed gracefully, letting in-flight requests complete. Defaults to
+     * {@value #DEFAULT_MAX_CLIENTS} clients and an idle timeout of 5 minutes
+     *
+     * @param maxClients The maximum number of cached clients; must be positive
+     * @param idleTimeout The time after which an unused client is closed; must be positive
+     * @throws IllegalArgumentException if {@code maxClients} or {@code idleTimeout} is not positive
+     */
+    public static void configureClients(int maxClients, Duration idleTimeout) {
+        CLIENTS.configure(maxClients, idleTimeout);
     }
 
     /**
@@ -127,6 +325,7 @@ public class Http {
     public Http withUrl(String url) {
         Objects.requireNonNull(url, "url can not be null");
         this.url = url;
+        this.origin = null;
         return this;
     }
 
@@ -160,6 +359,30 @@ public class Http {
         return this;
     }
 
+    /**
+     * Uses the transport settings of the profile registered under the given name
+     *
+     * @param name The name of the profile
+     * @return The Http instance
+     * @throws IllegalArgumentException if no profile is registered under the given name
+     */
+    public Http withProfile(String name) {
+        this.profile = profile(name);
+        return this;
+    }
+
+    /**
+     * Uses the transport settings of the given profile. Profiles are compared by value, so an
+     * equal profile created per request reuses the cached clients of the first one
+     *
+     * @param profile The profile to use
+     * @return The Http instance
+     */
+    public Http withProfile(Profile profile) {
+        this.profile = Objects.requireNonNull(profile, "profile can not be null");
+        return this;
+    }
+
     /**
      * Adds a failsafe scoped to this {@code Http} instance. Reuse the same instance
      * across calls to accumulate failures.
@@ -172,7 +395,214 @@ public class Http {
     public Http withFailsafe(int threshold, Duration delay) {
         Objects.requireNonNull(delay, "delay can not be null");
         this.failsafe = Failsafe.of(threshold, delay);
+        this.sharedFailsafeDelay = null;
+
+        return this;
+    }
+
+    /**
+     * Adds the given failsafe, e.g. one configured with a failure rate or a number of
+     * half-open probes. Reuse the same failsafe across calls to accumulate failures
+     *
+     * @param failsafe The failsafe to use
+     * @return The Http instance
+     */
+    public Http withFailsafe(Failsafe failsafe) {
+        this.failsafe = Objects.requireNonNull(failsafe, "failsafe can not be null");
+        this.sharedFailsafeDelay = null;
+        return this;
+    }
+
+    /**
+     * Adds a failsafe shared JVM-wide by all requests to the same origin (scheme, host and port)
+     * which use a shared failsafe. The failsafe is created by the first request to an origin;
+     * threshold and delay of later requests are ignored
+     *
+     * @param threshold The threshold for the failsafe; must be positive
+     * @param delay The delay until the next request
+     * @return The Http instance
+     * @throws IllegalArgumentException if {@code threshold} is zero or negative
+     */
+    public Http withSharedFailsafe(int threshold, Duration delay) {
+        return shareFailsafe(null, threshold, delay);
+    }
+
+    /**
+     * Adds a failsafe shared JVM-wide by all requests using the same key. The failsafe
+     * is created by the first request using the key; threshold and delay of later
+     * requests are ignored
+     *
+     * @param key The key to share the failsafe by
+     * @param threshold The threshold for the failsafe; must be positive
+     * @param delay The delay until the next request
+     * @return The Http instance
+     * @throws IllegalArgumentException if {@code threshold} is zero or negative
+     */
+    public Http withSharedFailsafe(String key, int threshold, Duration delay) {
+        Objects.requireNonNull(key, "key can not be null");
+        return shareFailsafe(key, threshold, delay);
+    }
 
+    /**
+     * Retries failed connections, timeouts and retryable status codes according to the given policy.
+     * Only the final attempt is reported to a failsafe
+     *
+     * @param retry The retry policy to use; reuse it across requests to share its retry budget
+     * @return The Http instance
+     */
+    public Http withRetry(Retry retry) {
+        this.retry = Objects.requireNonNull(retry, "retry can not be null");
+        return this;
+    }
+
+    /**
+     * Sends a duplicate request if no response has arrived within the hedging delay and uses
+     * whichever response arrives first. Only applies to idempotent methods
+     *
+     * @param hedge The hedging policy to use; reuse it across requests to share its observations and budget
+     * @return The Http instance
+     */
+    public Http withHedging(Hedge hedge) {
+        this.hedge = Objects.requireNonNull(hedge, "hedge can not be null");
+        return this;
+    }
+
+    /**
+     * Limits the request rate with the given rate limiter; every attempt, including retries
+     * and hedged requests, needs a permit. Requests which would wait longer than the maximum
+     * wait of the rate limiter are not sent
+     *
+     * @param rateLimiter The rate limiter to use
+     * @return The Http instance
+     */
+    public Http withRateLimiter(RateLimiter rateLimiter) {
+        this.rateLimiter = Objects.requireNonNull(rateLimiter, "rateLimiter can not be null");
+        this.sharedRateLimiter = null;
+        return this;
+    }
+
+    /**
+     * Limits the request rate with a rate limiter shared JVM-wide by all requests to the same
+     * origin (scheme, host and port) which use a shared rate limiter. The given rate limiter is
+     * registered by the first request to an origin; rate limiters of later requests are ignored
+     *
+     * @param rateLimiter The rate limiter to register if none is registered for the origin yet
+     * @return The Http instance
+     */
+    public Http withSharedRateLimiter(RateLimiter rateLimiter) {
+        this.sharedRateLimiter = Objects.requireNonNull(rateLimiter, "rateLimiter can not be null");
+        this.sharedRateLimiterKey = null;
+        this.rateLimiter = null;
+        return this;
+    }
+
+    /**
+     * Limits the request rate with a rate limiter shared JVM-wide by all requests using the
+     * same key. The given rate limiter is registered by the first request using the key;
+     * rate limiters of later requests are ignored
+     *
+     * @param key The key to share the rate limiter by
+     * @param rateLimiter The rate limiter to register if none is registered under the key yet
+     * @return The Http instance
+     */
+    public Http withSharedRateLimiter(String key, RateLimiter rateLimiter) {
+        this.sharedRateLimiter = Objects.requireNonNull(rateLimiter, "rateLimiter can not be null");
+        this.sharedRateLimiterKey = Objects.requireNonNull(key, "key can not be null");
+        this.rateLimiter = null;
+        return this;
+    }
+
+    /**
+     * Limits the number of requests in flight with the given bulkhead. A slot is held until
+     * {@link #send()} returns, including retries; streamed response bodies are not counted
+     *
+     * @param bulkhead The bulkhead to use
+     * @return The Http instance
+     */
+    public Http withBulkhead(Bulkhead bulkhead) {
+        this.bulkhead = Objects.requireNonNull(bulkhead, "bulkhead can not be null");
+        this.sharedBulkhead = null;
+        return this;
+    }
+
+    /**
+     * Limits the number of requests in flight with a bulkhead shared JVM-wide by all requests
+     * to the same origin (scheme, host and port) which use a shared bulkhead. The given bulkhead
+     * is registered by the first request to an origin; bulkheads of later requests are ignored
+     *
+     * @param bulkhead The bulkhead to register if none is registered for the origin yet
+     * @return The Http instance
+     */
+    public Http withSharedBulkhead(Bulkhead bulkhead) {
+        this.sharedBulkhead = Objects.requireNonNull(bulkhead, "bulkhead can not be null");
+        this.sharedBulkheadKey = null;
+        this.bulkhead = null;
+        return this;
+    }
+
+    /**
+     * Limits the number of requests in flight with a bulkhead shared JVM-wide by all requests
+     * using the same key. The given bulkhead is registered by the first request using the key;
+     * bulkheads of later requests are ignored
+     *
+     * @param key The key to share the bulkhead by
+     * @param bulkhead The bulkhead to register if none is registered under the key yet
+     * @return The Http instance
+     */
+    public Http withSharedBulkhead(String key, Bulkhead bulkhead) {
+        this.sharedBulkhead = Objects.requireNonNull(bulkhead, "bulkhead can not be null");
+        this.sharedBulkheadKey = Objects.requireNonNull(key, "key can not be null");
+        this.bulkhead = null;
+        return this;
+    }
+
+    /**
+     * Serves GET requests from the given cache while the cached response is fresh and revalidates
+     * stale responses with a conditional request. Successful requests with other methods remove
+     * cached responses for the URL. Does not apply to {@link #streamResponse()} and
+     * {@link #binaryResponse(Path)}
+     *
+     * @param cache The cache to use; reuse it across requests
+     * @return The Http instance
+     */
+    public Http withCache(ResponseCache cache) {
+        this.cache = Objects.requireNonNull(cache, "cache can not be null");
+        return this;
+    }
+
+    /**
+     * Shares a single exchange between concurrent identical GET and HEAD requests: while a request
+     * with the same URL, headers and settings is in flight, further requests wait for it and receive
+     * the same {@link Result} instead of sending their own. Does not apply to {@link #streamResponse()}
+     * and {@link #binaryResponse(Path)}
+     *
+     * @return The Http instance
+     */
+    public Http withCoalescing() {
+        this.coalesce = true;
+        return this;
+    }
+
+    /**
+     * Records the {@link Timings} of every request sent by this instance into the given metrics.
+     * The timings are always available via {@link Result#timings()}
+     *
+     * @param metrics The metrics to record into, usually shared by many requests
+     * @return The Http instance
+     */
+    public Http withMetrics(Metrics metrics) {
+        this.metrics = Objects.requireNonNull(metrics, "metrics can not be null");
+        return this;
+    }
+
+    private Http shareFailsafe(String key, int threshold, Duration delay) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("threshold must be positive");
+        }
+        this.sharedFailsafeDelay = Objects.requireNonNull(delay, "delay can not be null");
+        this.sharedFailsafeThreshold = threshold;
+        this.sharedFailsafeKey = key;
+        this.failsafe = null;
         return this;
     }
 
@@ -205,7 +635,62 @@ public class Http {
      * @return The Http instance
      */
     public Http withBody(String body) {
-        setBody(body);
+        Objects.requireNonNull(body, "body can not be null");
+        setBody(Body.of(body));
+        return this;
+    }
+
+    /**
+     * Sets the binary body of the request. The array is sent as is and
+     * must not be modified until the request has been sent
+     *
+     * @param body The body to set
+     * @return The Http instance
+     */
+    public Http withBody(byte[] body) {
+        Objects.requireNonNull(body, "body can not be null");
+        setBody(Body.of(body));
+        return this;
+    }
+
+    /**
+     * Sets the binary body of the request to the remaining bytes of the given buffer.
+     * The buffer content is sent without copying and must not be modified until the
+     * request has been sent
+     *
+     * @param body The body to set
+     * @return The Http instance
+     */
+    public Http withBody(ByteBuffer body) {
+        Objects.requireNonNull(body, "body can not be null");
+        setBody(Body.of(body));
+        return this;
+    }
+
+    /**
+     * Sets the body of the request to the content of the given file. The file is
+     * streamed from disk when the request is sent
+     *
+     * @param body The file to send
+     * @return The Http instance
+     */
+    public Http withBody(Path body) {
+        Objects.requireNonNull(body, "body can not be null");
+        setBody(Body.of(body));
+        return this;
+    }
+
+    /**
+     * Sets the body of the request to the content of the stream returned by the given
+     * supplier. The stream is read while the request is sent and closed afterwards; the
+     * supplier is called again for every attempt
+     *
+     * @param body The supplier of the stream to send
+     * @return The Http instance
+     */
+    public Http withBody(Supplier<InputStream> body) {
+        Objects.requireNonNull(body, "body can not be null");
+        setBody(Body.of(body));
         return this;
     }
 
@@ -217,7 +702,7 @@ public class Http {
      * @return The Http instance
      */
     public Http withForm(Map<String, String> formData) {
-        setBody(Utils.getFormDataAsString(formData));
+        setBody(Body.of(Utils.getFormDataAsString(formData)));
         withHeader("Content-Type", "application/x-www-form-urlencoded");
         return this;
     }
@@ -241,6 +726,77 @@ public class Http {
         return this;
     }
 
+    /**
+     * Enables transparent response compression. The request announces gzip and deflate
+     * support via Accept-Encoding (unless the header was set explicitly) and compressed
+     * responses are decompressed while the body is read. The maximum response size applies
+     * to the decompressed body
+     *
+     * @return The Http instance
+     */
+    public Http acceptCompression() {
+        this.acceptCompression = true;
+        return this;
+    }
+
+    /**
+     * Enables gzip compression of request bodies of at least {@value #DEFAULT_COMPRESSION_THRESHOLD}
+     * bytes. See {@link #compressBody(long)}
+     *
+     * @return The Http instance
+     */
+    public Http compressBody() {
+        return compressBody(DEFAULT_COMPRESSION_THRESHOLD);
+    }
+
+    /**
+     * Enables gzip compression of the request body and sets Content-Encoding accordingly.
+     * The body is compressed while it is sent, without building a compressed copy in memory.
+     * Bodies smaller than the given threshold are sent uncompressed; bodies of unknown length
+     * are always compressed. Compression is skipped if a Content-Encoding header was set explicitly
+     *
+     * @param minBytes The minimum body size in bytes to compress; must not be negative
+     * @return The Http instance
+     * @throws IllegalArgumentException if {@code minBytes} is negative
+     */
+    public Http compressBody(long minBytes) {
+        if (minBytes < 0) {
+            throw new IllegalArgumentException("minBytes must not be negative");
+        }
+        this.compressionThreshold = minBytes;
+        return this;
+    }
+
+    /**
+     * Enables binary response and writes a successful (2xx) response body directly
+     * to the given file instead of keeping it in memory. The body is written to a
+     * temporary file first and moved to the target once complete, so the target never
+     * contains a partial download. Non-successful responses are not written to the file
+     * and their body is available via {@link Result#body()}
+     *
+     * @param file The file to write the response body to; an existing file is replaced
+     * @return The Http instance
+     */
+    public Http binaryResponse(Path file) {
+        this.file = Objects.requireNonNull(file, "file can not be null");
+        this.binaryResponse = true;
+        return this;
+    }
+
+    /**
+     * Enables streaming response so that the body is not buffered but handed
+     * to the caller as an {@link InputStream} via {@link Result#stream()} as soon
+     * as status and headers have been received. The maximum response size is
+     * enforced while the stream is read. The caller is responsible for
+     * closing the stream
+     *
+     * @return The Http instance
+     */
+    public Http streamResponse() {
+        this.streamResponse = true;
+        return this;
+    }
+
     /**
      * Disables all HTTPS certificate and hostname validation.
      * Do not use in production; enables MITM attacks.
@@ -269,102 +825,543 @@ public class Http {
         return this;
     }
 
-    private void setBody(String body) {
-        Objects.requireNonNull(body, "body can not be null");
-        if (this.body == null || this.body.isEmpty()) {
+    private void setBody(Body body) {
+        if (this.body.isEmpty()) {
             this.body = body;
         }
     }
 
-    public Result send() {
-        var result = Result.create();
-        if (failsafe != null && failsafe.isActive()) {
-            return Utils.blockedByFailsafe(result);
-        }
-
-        var httpClient = getHttpClient(followRedirects, disableValidation, proxy);
+    /**
+     * Establishes a connection to the URL of this request ahead of time by sending a HEAD request
+     * with the headers, timeout and version of this request. DNS lookup, TCP and TLS handshake and
+     * HTTP/2 negotiation are paid upfront and the connection is kept in the cached client matching
+     * the redirect, validation, proxy and profile settings of this request, for as long as the
+     * JDK keeps idle connections alive. Any HTTP status counts as established connection
+     *
+     * @return The outcome of the warm-up
+     */
+    public Warmup prewarm() {
+        long start = System.nanoTime();
         try {
             var requestBuilder = HttpRequest.newBuilder()
                     .uri(Utils.toAllowedUri(url))
                     .timeout(timeout)
                     .version(version)
-                    .method(method, HttpRequest.BodyPublishers.ofString(body));
+                    .method("HEAD", HttpRequest.BodyPublishers.noBody());
+            headers.forEach(requestBuilder::header);
+
+            var response = client()
+                    .send(requestBuilder.build(), HttpResponse.BodyHandlers.discarding());
+
+            return new Warmup(url, response.statusCode(), Duration.ofNanos(System.nanoTime() - start), null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Warmup(url, -1, Duration.ofNanos(System.nanoTime() - start), reason(e));
+        } catch (IOException | URISyntaxException | IllegalArgumentException e) {
+            return new Warmup(url, -1, Duration.ofNanos(System.nanoTime() - start), reason(e));
+        }
+    }
+
+    /**
+     * Executes the request and blocks until the response has been received
+     *
+     * @return The result of the request
+     */
+    public Result send() {
+        if (!coalesce || !("GET".equals(method) || "HEAD".equals(method)) || !body.isEmpty() || streamResponse || file != null) {
+            return fetch();
+        }
 
-            if (!headers.isEmpty()) {
-                headers.forEach(requestBuilder::header);
+        var key = new Coalescing(method, url, lowercaseHeaders(), ClientRegistry.Key.of(followRedirects, disableValidation, proxy, profile),
+                timeout, version, binaryResponse, acceptCompression, maxResponseSize);
+        var future = new CompletableFuture<Result>();
+        var inFlight = IN_FLIGHT.putIfAbsent(key, future);
+        if (inFlight != null) {
+            try {
+                return inFlight.get().copy();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return failed(Result.create(), e);
+            } catch (ExecutionException e) {
+                return failed(Result.create(), e.getCause());
             }
+        }
+
+        try {
+            var result = fetch();
+            future.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            IN_FLIGHT.remove(key, future);
+        }
+    }
+
+    private Result fetch() {
+        if (cache == null) {
+            return execute(Map.of());
+        }
+
+        if (!"GET".equals(method)) {
+            var result = execute(Map.of());
+            if (result.isValid() && !isSafe(method)) {
+                cache.invalidate(url);
+            }
+            return result;
+        }
+
+        if (streamResponse || file != null || hasCacheDirective("no-store")) {
+            return execute(Map.of());
+        }
+
+        var entry = cache.get(url, this::requestHeader);
+        if (entry != null && entry.isFresh(System.currentTimeMillis()) && !hasCacheDirective("no-cache")) {
+            return cached(entry);
+        }
 
-            HttpResponse<InputStream> response = httpClient.send(
-                    requestBuilder.build(),
-                    HttpResponse.BodyHandlers.ofInputStream());
-
-            response
-                    .headers()
-                    .map()
-                    .forEach((key, value) -> result.withHeader(key, value.getFirst()));
-
-            try (InputStream inputStream = response.body()) {
-                byte[] data = Utils.readLimited(inputStream, maxResponseSize);
-                result.withStatus(response.statusCode());
-                if (binaryResponse) {
-                    result.withBinaryBody(data);
-                } else {
-                    result.withBody(new String(data, StandardCharsets.UTF_8));
+        var result = execute(entry == null ? Map.of() : validators(entry));
+        if (entry != null && result.status() == 304) {
+            return cached(cache.revalidated(entry, result.responseHeaders(), System.currentTimeMillis()));
+        }
+        if (result.status() == 200) {
+            cache.put(url, this::requestHeader, result.status(), result.responseHeaders(), result.bodyAsBuffer(), System.currentTimeMillis());
+        }
+
+        return result;
+    }
+
+    private Result execute(Map<String, String> conditionalHeaders) {
+        var result = Result.create();
+        var effectiveFailsafe = effectiveFailsafe();
+        int admission = effectiveFailsafe == null ? 0 : effectiveFailsafe.admit();
+        if (admission == Failsafe.BLOCKED) {
+            return Utils.blockedByFailsafe(result);
+        }
+
+        var effectiveRateLimiter = effectiveRateLimiter();
+        var effectiveBulkhead = effectiveBulkhead();
+        var stopwatch = new Stopwatch();
+        try {
+            var request = request(conditionalHeaders);
+            stopwatch.lap(Metrics.Phase.BUILD);
+            if (effectiveRateLimiter != null && !effectiveRateLimiter.acquire()) {
+                stopwatch.lap(Metrics.Phase.WAIT);
+                release(effectiveFailsafe, admission);
+                return timed(Utils.blockedByRateLimiter(result), stopwatch);
+            }
+            if (effectiveBulkhead != null && !effectiveBulkhead.acquire()) {
+                stopwatch.lap(Metrics.Phase.WAIT);
+                release(effectiveFailsafe, admission);
+                return timed(Utils.blockedByBulkhead(result), stopwatch);
+            }
+            stopwatch.lap(Metrics.Phase.WAIT);
+            try {
+                var httpClient = client();
+                stopwatch.lap(Metrics.Phase.LOOKUP);
+                var response = exchange(httpClient, request, effectiveRateLimiter);
+                stopwatch.lap(Metrics.Phase.HEADERS);
+                read(response, result);
+                stopwatch.lap(Metrics.Phase.BODY);
+            } finally {
+                if (effectiveBulkhead != null) {
+                    effectiveBulkhead.release();
                 }
             }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            String message = e.getMessage();
-            if (message != null && !message.isBlank()) {
-                result.withBody(Utils.clean(message));
-            }
+            failed(result, e);
         } catch (IOException | URISyntaxException e) {
-            String message = e.getMessage();
-            if (message != null && !message.isBlank()) {
-                result.withBody(Utils.clean(message));
-            }
+            failed(result, e);
         }
 
+        return record(timed(result, stopwatch), effectiveFailsafe, admission);
+    }
+
+    private static void release(Failsafe failsafe, int admission) {
         if (failsafe != null) {
-            if (result.isValid()) {
-                failsafe.success();
+            failsafe.release(admission);
+        }
+    }
+
+    private Result timed(Result result, Stopwatch stopwatch) {
+        var timings = stopwatch.stop();
+        if (metrics != null) {
+            metrics.record(origin(), method, result.status(), timings);
+        }
+
+        return result.withTimings(timings);
+    }
+
+    /**
+     * Executes the request without blocking the calling thread. The response body
+     * is read on a virtual thread once the response headers have been received,
+     * applying the same failsafe, retry and maximum response size rules as {@link #send()}.
+     * Requests with a retry or hedging policy, a rate limiter, a bulkhead, a cache or coalescing
+     * are executed by {@link #send()} on a virtual thread
+     *
+     * @return A future completing with the result of the request; the future never completes exceptionally
+     */
+    public CompletableFuture<Result> sendAsync() {
+        if (hasBlockingPolicy()) {
+            return CompletableFuture.supplyAsync(this::send, EXECUTOR);
+        }
+
+        var result = Result.create();
+        var effectiveFailsafe = effectiveFailsafe();
+        int admission = effectiveFailsafe == null ? 0 : effectiveFailsafe.admit();
+        if (admission == Failsafe.BLOCKED) {
+            return CompletableFuture.completedFuture(Utils.blockedByFailsafe(result));
+        }
+
+        var stopwatch = new Stopwatch();
+        var httpClient = client();
+        stopwatch.lap(Metrics.Phase.LOOKUP);
+        HttpRequest request;
+        try {
+            request = request(Map.of());
+        } catch (URISyntaxException | IOException e) {
+            return CompletableFuture.completedFuture(record(timed(failed(result, e), stopwatch), effectiveFailsafe, admission));
+        }
+        stopwatch.lap(Metrics.Phase.BUILD);
+
+        return httpClient
+                .sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                .thenApplyAsync(response -> {
+                    stopwatch.lap(Metrics.Phase.HEADERS);
+                    try {
+                        read(response, result);
+                        stopwatch.lap(Metrics.Phase.BODY);
+                        return result;
+                    } catch (IOException e) {
+                        return failed(result, e);
+                    }
+                }, EXECUTOR)
+                .exceptionally(e -> failed(result, e instanceof CompletionException && e.getCause() != null ? e.getCause() : e))
+                .thenApply(completed -> record(timed(completed, stopwatch), effectiveFailsafe, admission));
+    }
+
+    private HttpResponse<InputStream> exchange(HttpClient httpClient, HttpRequest request, RateLimiter rateLimiter) throws IOException, InterruptedException {
+        if (retry == null) {
+            return attempt(httpClient, request, rateLimiter);
+        }
+
+        retry.onRequest();
+        for (int attempt = 1; ; attempt++) {
+            HttpResponse<InputStream> response;
+            try {
+                response = attempt(attempt == 1 ? httpClient : client(), request, rateLimiter);
+            } catch (IOException e) {
+                var delay = admit(rateLimiter, retry.next(attempt, method, null));
+                if (delay == null) {
+                    throw e;
+                }
+                Thread.sleep(delay);
+                continue;
+            }
+
+            var delay = retry.retryable(response.statusCode())
+                    ? admit(rateLimiter, retry.next(attempt, method, response.headers().firstValue("Retry-After").orElse(null)))
+                    : null;
+            if (delay == null) {
+                return response;
+            }
+            response.body().close();
+            Thread.sleep(delay);
+        }
+    }
+
+    private HttpResponse<InputStream> attempt(HttpClient httpClient, HttpRequest request, RateLimiter rateLimiter) throws IOException, InterruptedException {
+        var response = hedge != null && isIdempotent(method)
+                ? hedge.send(httpClient, request, rateLimiter)
+                : httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        if (rateLimiter != null) {
+            rateLimiter.update(response.statusCode(), response.headers());
+        }
+
+        return response;
+    }
+
+    /**
+     * Looks up the client right before it is used: evicted clients are closed shortly after their
+     * eviction, so a client must not be held across rate limiter, bulkhead or retry waits
+     */
+    private HttpClient client() {
+        return CLIENTS.get(ClientRegistry.Key.of(followRedirects, disableValidation, proxy, profile));
+    }
+
+    private static Duration admit(RateLimiter rateLimiter, Duration delay) {
+        if (rateLimiter == null || delay == null) {
+            return delay;
+        }
+
+        long wait = rateLimiter.reserve(delay.toNanos());
+        return wait < 0 ? null : Duration.ofNanos(wait);
+    }
+
+    private HttpRequest request(Map<String, String> additionalHeaders) throws URISyntaxException, IOException {
+        var requestBuilder = HttpRequest.newBuilder()
+                .uri(Utils.toAllowedUri(url))
+                .timeout(timeout)
+                .version(version);
+
+        if (!headers.isEmpty()) {
+            headers.forEach(requestBuilder::header);
+        }
+        additionalHeaders.forEach(requestBuilder::header);
+
+        if (compress()) {
+            requestBuilder
+                    .header("Content-Encoding", "gzip")
+                    .method(method, body.gzipPublisher());
+        } else {
+            requestBuilder.method(method, body.publisher());
+        }
+
+        if (acceptCompression && !hasHeader("Accept-Encoding")) {
+            requestBuilder.header("Accept-Encoding", ACCEPT_ENCODING);
+        }
+
+        return requestBuilder.build();
+    }
+
+    private boolean compress() throws IOException {
+        if (compressionThreshold < 0 || body.isEmpty() || hasHeader("Content-Encoding")) {
+            return false;
+        }
+
+        long length = body.length();
+        return length < 0 || length >= compressionThreshold;
+    }
+
+    private Map<String, String> lowercaseHeaders() {
+        Map<String, String> lowercase = new HashMap<>();
+        headers.forEach((key, value) -> lowercase.put(key.toLowerCase(Locale.ENGLISH), value));
+        return lowercase;
+    }
+
+    private boolean hasHeader(String key) {
+        return headers.keySet().stream().anyMatch(key::equalsIgnoreCase);
+    }
+
+    private String requestHeader(String key) {
+        for (var header : headers.entrySet()) {
+            if (header.getKey().equalsIgnoreCase(key)) {
+                return header.getValue();
+            }
+        }
+
+        return acceptCompression && "Accept-Encoding".equalsIgnoreCase(key) ? ACCEPT_ENCODING : null;
+    }
+
+    private boolean hasCacheDirective(String directive) {
+        var cacheControl = requestHeader("Cache-Control");
+        return cacheControl != null && cacheControl.toLowerCase(Locale.ENGLISH).contains(directive);
+    }
+
+    private static Map<String, String> validators(ResponseCache.Entry entry) {
+        var etag = entry.validator("ETag");
+        var lastModified = entry.validator("Last-Modified");
+        if (etag != null && lastModified != null) {
+            return Map.of("If-None-Match", etag, "If-Modified-Since", lastModified);
+        } else if (etag != null) {
+            return Map.of("If-None-Match", etag);
+        }
+
+        return lastModified == null ? Map.of() : Map.of("If-Modified-Since", lastModified);
+    }
+
+    private Result cached(ResponseCache.Entry entry) {
+        var body = entry.body().duplicate();
+        var result = Result.create()
+                .withHeaders(entry.headers())
+                .withStatus(entry.status())
+                .withSizes(0, body.remaining());
+
+        if (binaryResponse) {
+            result.withBinaryBody(body);
+        } else {
+            result.withBody(body, Utils.charset(entry.headers().firstValue("Content-Type").orElse(null)));
+        }
+
+        return result;
+    }
+
+    private Result read(HttpResponse<InputStream> response, Result result) throws IOException {
+        result.withHeaders(response.headers());
+
+        var encoding = contentEncoding(response);
+        long contentLength = encoding == null ? response.headers().firstValueAsLong("Content-Length").orElse(-1) : -1;
+        if (contentLength > maxResponseSize) {
+            response.body().close();
+            Utils.checkLimit(contentLength, maxResponseSize);
+        }
+
+        var wire = new CountingInputStream(response.body());
+        InputStream body = wire;
+        if (encoding != null) {
+            try {
+                body = Utils.decompress(wire, encoding);
+            } catch (IOException e) {
+                wire.close();
+                throw e;
+            }
+        }
+
+        if (streamResponse) {
+            return result
+                    .withStatus(response.statusCode())
+                    .withStream(new LimitedInputStream(body, maxResponseSize));
+        }
+
+        try (InputStream inputStream = body) {
+            if (file != null && Utils.isSuccessCode(response.statusCode())) {
+                var written = Utils.writeLimited(inputStream, file, maxResponseSize);
+                return result
+                        .withFile(written)
+                        .withSizes(wire.count(), Files.size(written))
+                        .withStatus(response.statusCode());
+            }
+
+            byte[] data = Utils.readLimited(inputStream, contentLength, maxResponseSize);
+            result.withStatus(response.statusCode()).withSizes(wire.count(), data.length);
+            if (binaryResponse && file == null) {
+                result.withBinaryBody(data);
             } else {
-                failsafe.error();
+                result.withBody(data, Utils.charset(response.headers().firstValue("Content-Type").orElse(null)));
             }
         }
 
         return result;
     }
 
-    private static HttpClient getHttpClient(boolean followRedirects, boolean disableValidation, InetSocketAddress proxy) {
-        var key = String.valueOf(followRedirects) + disableValidation;
+    private String contentEncoding(HttpResponse<InputStream> response) {
+        if (!acceptCompression || response.statusCode() == 204 || response.statusCode() == 304
+                || response.headers().firstValueAsLong("Content-Length").orElse(-1) == 0) {
+            return null;
+        }
+
+        return response.headers()
+                .firstValue("Content-Encoding")
+                .map(encoding -> encoding.strip().toLowerCase(Locale.ROOT))
+                .filter(encoding -> "gzip".equals(encoding) || "x-gzip".equals(encoding) || "deflate".equals(encoding))
+                .orElse(null);
+    }
+
+    static boolean isIdempotent(String method) {
+        return IDEMPOTENT_METHODS.contains(method);
+    }
+
+    private static boolean isSafe(String method) {
+        return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method) || "TRACE".equals(method);
+    }
 
-        if (proxy != null) {
-            key = key + proxy.getHostString() + ":" + proxy.getPort();
+    /**
+     * @return The origin (scheme, host and port) of the URL, parsed once per URL
+     */
+    String origin() {
+        String current = origin;
+        if (current == null) {
+            current = origin(url);
+            origin = current;
         }
 
-        synchronized (CLIENT_LOCK) {
-            return HTTP_CLIENTS.compute(key, (cacheKey, existing) -> {
-                if (existing != null && !existing.isTerminated()) {
-                    return existing;
-                }
+        return current;
+    }
 
-                var clientBuilder = HttpClient.newBuilder().executor(EXECUTOR);
+    private static String origin(String url) {
+        try {
+            var uri = Utils.toAllowedUri(url);
+            var scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+            int port = uri.getPort();
+            if (port == -1) {
+                port = "https".equals(scheme) ? 443 : 80;
+            }
 
-                if (followRedirects) {
-                    clientBuilder.followRedirects(HttpClient.Redirect.NORMAL);
-                }
+            return scheme + "://" + uri.getHost() + ":" + port;
+        } catch (URISyntaxException e) {
+            return "";
+        }
+    }
 
-                if (disableValidation) {
-                    Utils.applyDisableValidation(clientBuilder);
-                }
+    private static String reason(Throwable throwable) {
+        String message = throwable.getMessage();
+        return message == null || message.isBlank() ? throwable.getClass().getSimpleName() : Utils.clean(message);
+    }
 
-                if (proxy != null) {
-                    clientBuilder.proxy(ProxySelector.of(proxy));
-                }
+    static Result failed(Result result, Throwable throwable) {
+        String message = throwable.getMessage();
+        if (message != null && !message.isBlank()) {
+            result.withBody(Utils.clean(message));
+        }
+
+        return result;
+    }
+
+    private Failsafe effectiveFailsafe() {
+        if (sharedFailsafeDelay == null) {
+            return failsafe;
+        }
+
+        return FAILSAFES.getOrRegister(sharedFailsafeKey != null ? sharedFailsafeKey : origin(),
+                () -> Failsafe.of(sharedFailsafeThreshold, sharedFailsafeDelay));
+    }
+
+    private boolean hasBlockingPolicy() {
+        return retry != null || hedge != null
+                || rateLimiter != null || sharedRateLimiter != null
+                || bulkhead != null || sharedBulkhead != null
+                || cache != null || coalesce;
+    }
+
+    private Bulkhead effectiveBulkhead() {
+        if (sharedBulkhead == null) {
+            return bulkhead;
+        }
+
+        return BULKHEADS.getOrRegister(sharedBulkheadKey != null ? sharedBulkheadKey : origin(), () -> sharedBulkhead);
+    }
+
+    private RateLimiter effectiveRateLimiter() {
+        if (sharedRateLimiter == null) {
+            return rateLimiter;
+        }
+
+        return RATE_LIMITERS.getOrRegister(sharedRateLimiterKey != null ? sharedRateLimiterKey : origin(), () -> sharedRateLimiter);
+    }
+
+    private static Result record(Result result, Failsafe effectiveFailsafe, int admission) {
+        if (effectiveFailsafe != null) {
+            if (result.isValid() || result.status() == 304) {
+                effectiveFailsafe.success(admission);
+            } else {
+                effectiveFailsafe.error(admission);
+            }
+        }
+
+        return result;
+    }
+
+    private static HttpClient newHttpClient(ClientRegistry.Key key) {
+        var clientBuilder = HttpClient.newBuilder().executor(EXECUTOR);
 
-                return clientBuilder.build();
-            });
+        if (key.followRedirects()) {
+            clientBuilder.followRedirects(HttpClient.Redirect.NORMAL);
         }
+
+        if (key.disableValidation()) {
+            Utils.applyDisableValidation(clientBuilder);
+        }
+
+        if (key.proxy() != null) {
+            clientBuilder.proxy(ProxySelector.of(key.proxy()));
+        }
+
+        if (key.profile() != null) {
+            key.profile().apply(clientBuilder);
+        }
+
+        return clientBuilder.build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,238 @@
+package de.svenkubiak.http;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Aggregates the {@link Timings} of requests into lock-free latency histograms per origin,
+ * method and status class, and passes each request to the registered listeners, e.g. to
+ * export them to a metrics system. A single instance is usually shared by many requests
+ */
+public class Metrics {
+    private final Map<Series, Histogram[]> histograms = new ConcurrentHashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * The phases of a request, see {@link Timings}
+     */
+    public enum Phase {
+        LOOKUP, BUILD, WAIT, HEADERS, BODY, TOTAL
+    }
+
+    /**
+     * Receives the timings of every completed request
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * Invoked on the thread completing the request; implementations must be fast and thread-safe
+         *
+         * @param origin The origin of the request, e.g. https://example.com:443
+         * @param method The HTTP method
+         * @param status The HTTP status, or -1 if no response was received
+         * @param timings The time spent in the individual phases of the request
+         */
+        void onRequest(String origin, String method, int status, Timings timings);
+    }
+
+    private record Series(String origin, String method, int statusClass) {}
+
+    private Metrics() {}
+
+    /**
+     * @return A new Metrics instance without listeners
+     */
+    public static Metrics create() {
+        return new Metrics();
+    }
+
+    /**
+     * Adds a listener which is invoked after every request recorded by this instance.
+     * Exceptions thrown by the listener are ignored and never fail the request
+     *
+     * @param listener The listener
+     * @return The Metrics instance
+     */
+    public Metrics withListener(Listener listener) {
+        listeners.add(Objects.requireNonNull(listener, "listener can not be null"));
+        return this;
+    }
+
+    /**
+     * Returns a point-in-time snapshot of every histogram, ordered by origin, method, status class
+     * and phase. Requests recorded while the snapshot is taken may be partially included
+     *
+     * @return The snapshots of all histograms
+     */
+    public List<Snapshot> snapshot() {
+        var snapshots = new ArrayList<Snapshot>();
+        histograms.forEach((series, phases) -> {
+            for (var phase : Phase.values()) {
+                snapshots.add(new Snapshot(series, phase, phases[phase.ordinal()]));
+            }
+        });
+        snapshots.sort(Comparator.comparing(Snapshot::origin)
+                .thenComparing(Snapshot::method)
+                .thenComparingInt(Snapshot::statusClass)
+                .thenComparing(Snapshot::phase));
+
+        return snapshots;
+    }
+
+    /**
+     * Returns a point-in-time snapshot of a single histogram
+     *
+     * @param origin The origin, e.g. https://example.com:443
+     * @param method The HTTP method
+     * @param statusClass The status class, e.g. 2 for 2xx, or 0 for requests without a response
+     * @param phase The phase
+     * @return The snapshot, or null if no matching request has been recorded
+     */
+    public Snapshot snapshot(String origin, String method, int statusClass, Phase phase) {
+        Objects.requireNonNull(phase, "phase can not be null");
+
+        var phases = histograms.get(new Series(origin, method, statusClass));
+        return phases == null ? null : new Snapshot(new Series(origin, method, statusClass), phase, phases[phase.ordinal()]);
+    }
+
+    /**
+     * Removes all recorded histograms; listeners are kept
+     */
+    public void reset() {
+        histograms.clear();
+    }
+
+    void record(String origin, String method, int status, Timings timings) {
+        var series = new Series(origin, method, status < 0 ? 0 : status / 100);
+        var phases = histograms.get(series);
+        if (phases == null) {
+            phases = histograms.computeIfAbsent(series, key -> newHistograms());
+        }
+        for (var phase : Phase.values()) {
+            phases[phase.ordinal()].record(timings.nanos(phase));
+        }
+
+        for (var listener : listeners) {
+            try {
+                listener.onRequest(origin, method, status, timings);
+            } catch (RuntimeException e) {
+                //A failing listener must not fail the request
+            }
+        }
+    }
+
+    private static Histogram[] newHistograms() {
+        var phases = new Histogram[Phase.values().length];
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = new Histogram();
+        }
+
+        return phases;
+    }
+
+    /**
+     * Point-in-time copy of the histogram of a single phase for one origin, method and status class
+     */
+    public static final class Snapshot {
+        private final Series series;
+        private final Phase phase;
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(Series series, Phase phase, Histogram histogram) {
+            this.series = series;
+            this.phase = phase;
+            this.counts = histogram.counts();
+            this.sum = histogram.sum();
+            this.max = histogram.max();
+
+            long total = 0;
+            for (long bucket : counts) {
+                total += bucket;
+            }
+            this.count = total;
+        }
+
+        public String origin() {
+            return series.origin();
+        }
+
+        public String method() {
+            return series.method();
+        }
+
+        /**
+         * @return The status class, e.g. 2 for 2xx, or 0 for requests without a response
+         */
+        public int statusClass() {
+            return series.statusClass();
+        }
+
+        public Phase phase() {
+            return phase;
+        }
+
+        /**
+         * @return The number of recorded requests
+         */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * @return The mean duration, or zero if no request has been recorded
+         */
+        public Duration mean() {
+            return count == 0 ? Duration.ZERO : Duration.ofNanos(sum / count);
+        }
+
+        /**
+         * @return The maximum duration, or zero if no request has been recorded
+         */
+        public Duration max() {
+            return Duration.ofNanos(max);
+        }
+
+        /**
+         * Returns the duration at or below which the given share of the recorded requests fall.
+         * The result overestimates the exact percentile by at most 12.5%, but never exceeds {@link #max()}
+         *
+         * @param percentile The percentile between 0 (exclusive) and 1 (inclusive), e.g. 0.99
+         * @return The duration, or zero if no request has been recorded
+         * @throws IllegalArgumentException if {@code percentile} is out of range
+         */
+        public Duration percentile(double percentile) {
+            if (percentile <= 0 || percentile > 1) {
+                throw new IllegalArgumentException("percentile must be greater than 0 and at most 1");
+            }
+            if (count == 0) {
+                return Duration.ZERO;
+            }
+
+            long rank = (long) Math.ceil(percentile * count);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Duration.ofNanos(Math.min(Histogram.upperBound(i), max));
+                }
+            }
+
+            return Duration.ofNanos(max);
+        }
+
+        @Override
+        public String toString() {
+            return origin() + " " + method() + " " + statusClass() + "xx " + phase
+                    + " count=" + count + " p50=" + percentile(0.5) + " p99=" + percentile(0.99) + " max=" + max();
+        }
+    }
+}
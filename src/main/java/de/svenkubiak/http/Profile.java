@@ -0,0 +1,184 @@
+package de.svenkubiak.http;
+
+import javax.net.ssl.SSLParameters;
+import java.net.InetAddress;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+
+/**
+ * Immutable set of transport settings for the JDK {@link HttpClient} used by a request.
+ * A profile is registered once via {@link Http#register(Profile)} and selected per request
+ * via {@link Http#withProfile(String)}. Every distinct profile gets its own cached clients.
+ * Profiles are compared by value, so a profile created per request with the same settings reuses
+ * the cached clients; its executor and SSL parameters are compared by identity and must therefore
+ * be shared instances.
+ * <p>
+ * Connection keep-alive of the JDK client can only be configured JVM-wide via the
+ * {@code jdk.httpclient.keepalive.timeout} system property and is therefore not part of a profile.
+ */
+public final class Profile {
+    private final String name;
+    private Duration connectTimeout;
+    private Executor executor;
+    private int priority;
+    private SSLParameters sslParameters;
+    private InetAddress localAddress;
+    private Tls tls;
+
+    private Profile(String name) {
+        this.name = Objects.requireNonNull(name, "name can not be null");
+    }
+
+    /**
+     * Creates a new profile with the given name and the default transport settings
+     *
+     * @param name The name of the profile
+     * @return The Profile instance
+     */
+    public static Profile of(String name) {
+        return new Profile(name);
+    }
+
+    /**
+     * @param connectTimeout The timeout for establishing a connection
+     * @return A copy of this profile with the given connect timeout
+     */
+    public Profile withConnectTimeout(Duration connectTimeout) {
+        Objects.requireNonNull(connectTimeout, "connectTimeout can not be null");
+        var profile = copy();
+        profile.connectTimeout = connectTimeout;
+        return profile;
+    }
+
+    /**
+     * @param executor The executor for asynchronous tasks of the client; defaults to virtual threads
+     * @return A copy of this profile with the given executor
+     */
+    public Profile withExecutor(Executor executor) {
+        Objects.requireNonNull(executor, "executor can not be null");
+        var profile = copy();
+        profile.executor = executor;
+        return profile;
+    }
+
+    /**
+     * @param priority The default HTTP/2 stream priority, between 1 and 256 (inclusive)
+     * @return A copy of this profile with the given priority
+     * @throws IllegalArgumentException if {@code priority} is out of range
+     */
+    public Profile withPriority(int priority) {
+        if (priority < 1 || priority > 256) {
+            throw new IllegalArgumentException("priority must be between 1 and 256");
+        }
+        var profile = copy();
+        profile.priority = priority;
+        return profile;
+    }
+
+    /**
+     * @param sslParameters The SSL parameters, e.g. restricting protocols or cipher suites
+     * @return A copy of this profile with the given SSL parameters
+     */
+    public Profile withSslParameters(SSLParameters sslParameters) {
+        Objects.requireNonNull(sslParameters, "sslParameters can not be null");
+        var profile = copy();
+        profile.sslParameters = sslParameters;
+        return profile;
+    }
+
+    /**
+     * @param localAddress The local address to bind connections to
+     * @return A copy of this profile with the given local address
+     */
+    public Profile withLocalAddress(InetAddress localAddress) {
+        Objects.requireNonNull(localAddress, "localAddress can not be null");
+        var profile = copy();
+        profile.localAddress = localAddress;
+        return profile;
+    }
+
+    /**
+     * Uses the given TLS configuration for all connections of this profile. Its SSL context is
+     * created right away, so invalid trust or key material is reported here. SSL parameters set via
+     * {@link #withSslParameters(SSLParameters)} take precedence over its protocols and cipher suites,
+     * and it takes precedence over {@link Http#disableAllHttpsValidations()}
+     *
+     * @param tls The TLS configuration
+     * @return A copy of this profile with the given TLS configuration
+     * @throws IllegalArgumentException if the trust or key material of the configuration can not be used
+     */
+    public Profile withTls(Tls tls) {
+        Objects.requireNonNull(tls, "tls can not be null");
+        tls.sslContext();
+        var profile = copy();
+        profile.tls = tls;
+        return profile;
+    }
+
+    /**
+     * @return The name of the profile
+     */
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Profile profile)) {
+            return false;
+        }
+
+        return priority == profile.priority
+                && name.equals(profile.name)
+                && Objects.equals(connectTimeout, profile.connectTimeout)
+                && executor == profile.executor
+                && sslParameters == profile.sslParameters
+                && Objects.equals(localAddress, profile.localAddress)
+                && Objects.equals(tls, profile.tls);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, connectTimeout, System.identityHashCode(executor), priority,
+                System.identityHashCode(sslParameters), localAddress, tls);
+    }
+
+    void apply(HttpClient.Builder builder) {
+        if (connectTimeout != null) {
+            builder.connectTimeout(connectTimeout);
+        }
+        if (executor != null) {
+            builder.executor(executor);
+        }
+        if (priority > 0) {
+            builder.priority(priority);
+        }
+        if (tls != null) {
+            builder.sslContext(tls.sslContext());
+        }
+        if (sslParameters != null) {
+            builder.sslParameters(sslParameters);
+        } else if (tls != null && tls.sslParameters() != null) {
+            builder.sslParameters(tls.sslParameters());
+        }
+        if (localAddress != null) {
+            builder.localAddress(localAddress);
+        }
+    }
+
+    private Profile copy() {
+        var profile = new Profile(name);
+        profile.connectTimeout = connectTimeout;
+        profile.executor = executor;
+        profile.priority = priority;
+        profile.sslParameters = sslParameters;
+        profile.localAddress = localAddress;
+        profile.tls = tls;
+        return profile;
+    }
+}
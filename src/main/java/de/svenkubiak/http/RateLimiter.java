@@ -0,0 +1,181 @@
+package de.svenkubiak.http;
+
+import de.svenkubiak.utils.Utils;
+
+import java.net.http.HttpHeaders;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket rate limiter implemented as generic cell rate algorithm: a single
+ * theoretical arrival time is advanced by one interval per request. A request waiting longer
+ * than the maximum wait is rejected right away without consuming a permit. The limiter slows
+ * down on {@code Retry-After} headers of 429 and 503 responses and on exhausted
+ * {@code RateLimit-Remaining} / {@code RateLimit-Reset} (or structured {@code RateLimit}) headers.
+ * Configure the rate limiter before sharing it between threads.
+ */
+public class RateLimiter {
+    private final AtomicLong arrival = new AtomicLong(System.nanoTime());
+    private final long interval;
+    private long tolerance;
+    private long maxWait = Duration.ofSeconds(10).toNanos();
+
+    private RateLimiter(double permitsPerSecond) {
+        if (!(permitsPerSecond > 0)) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive");
+        }
+        this.interval = Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+    }
+
+    /**
+     * Creates a new rate limiter with a burst of 1 and a maximum wait of 10 seconds
+     *
+     * @param permitsPerSecond The number of requests per second; must be positive
+     * @return The RateLimiter instance
+     * @throws IllegalArgumentException if {@code permitsPerSecond} is zero or negative
+     */
+    public static RateLimiter of(double permitsPerSecond) {
+        return new RateLimiter(permitsPerSecond);
+    }
+
+    /**
+     * Sets the number of requests which may be sent at once after a period of inactivity
+     *
+     * @param burst The bucket size; must be positive
+     * @return The RateLimiter instance
+     * @throws IllegalArgumentException if {@code burst} is zero or negative
+     */
+    public RateLimiter withBurst(int burst) {
+        if (burst <= 0) {
+            throw new IllegalArgumentException("burst must be positive");
+        }
+        this.tolerance = interval * (burst - 1);
+        return this;
+    }
+
+    /**
+     * Sets the maximum time a request waits for a permit; requests which would have to wait
+     * longer are not sent
+     *
+     * @param maxWait The maximum wait; zero rejects every request without an immediately available permit
+     * @return The RateLimiter instance
+     */
+    public RateLimiter withMaxWait(Duration maxWait) {
+        Objects.requireNonNull(maxWait, "maxWait can not be null");
+        if (maxWait.isNegative()) {
+            throw new IllegalArgumentException("maxWait must not be negative");
+        }
+        this.maxWait = maxWait.toNanos();
+        return this;
+    }
+
+    /**
+     * Waits for a permit
+     *
+     * @return True if a permit was acquired, false if the wait would exceed the maximum wait
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean acquire() throws InterruptedException {
+        long wait = reserve(0);
+        if (wait < 0) {
+            return false;
+        }
+        if (wait > 0) {
+            Thread.sleep(Duration.ofNanos(wait));
+        }
+
+        return true;
+    }
+
+    /**
+     * Acquires a permit only if available without waiting
+     *
+     * @return True if a permit was acquired, false otherwise
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            long now = System.nanoTime();
+            long current = arrival.get();
+            long start = Math.max(current, now);
+            if (start - tolerance - now > 0) {
+                return false;
+            }
+            if (arrival.compareAndSet(current, start + interval)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Blocks all permits for the given time
+     *
+     * @param duration The time to pause
+     */
+    public void pause(Duration duration) {
+        Objects.requireNonNull(duration, "duration can not be null");
+        long until = System.nanoTime() + duration.toNanos() + tolerance;
+        arrival.accumulateAndGet(until, (current, next) -> next - current > 0 ? next : current);
+    }
+
+    /**
+     * Reserves a permit not earlier than the given delay. The burst tolerance only shortens the
+     * wait for the limiter itself, never the given delay
+     *
+     * @param notBefore The minimum delay in nanoseconds
+     * @return The nanoseconds to wait before the permit may be used, at least {@code notBefore},
+     * or -1 if that exceeds the delay plus the maximum wait
+     */
+    long reserve(long notBefore) {
+        while (true) {
+            long now = System.nanoTime();
+            long current = arrival.get();
+            long start = Math.max(current, now + notBefore);
+            long wait = Math.max(Math.max(0, notBefore), start - tolerance - now);
+            if (wait - notBefore > maxWait) {
+                return -1;
+            }
+            if (arrival.compareAndSet(current, start + interval)) {
+                return wait;
+            }
+        }
+    }
+
+    void update(int status, HttpHeaders headers) {
+        if (status == 429 || status == 503) {
+            var retryAfter = Utils.retryAfter(headers.firstValue("Retry-After").orElse(null));
+            if (retryAfter != null) {
+                pause(retryAfter);
+                return;
+            }
+        }
+
+        var remaining = headers.firstValue("RateLimit-Remaining").orElse(null);
+        var reset = headers.firstValue("RateLimit-Reset").orElse(null);
+        var structured = headers.firstValue("RateLimit").orElse(null);
+        if (remaining == null && structured != null) {
+            remaining = parameter(structured, "remaining");
+            reset = parameter(structured, "reset");
+        }
+
+        if (remaining != null && reset != null && "0".equals(remaining.strip())) {
+            var delay = Utils.retryAfter(reset);
+            if (delay != null) {
+                pause(delay);
+            }
+        }
+    }
+
+    private static String parameter(String header, String name) {
+        for (String part : header.split("[,;]")) {
+            var pair = part.strip().toLowerCase(Locale.ENGLISH);
+            if (pair.startsWith(name + "=")) {
+                return pair.substring(name.length() + 1);
+            }
+        }
+
+        return null;
+    }
+}
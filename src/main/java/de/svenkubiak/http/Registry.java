@@ -0,0 +1,32 @@
+package de.svenkubiak.http;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * JVM-wide registry of shared instances by key. Lookups of existing
+ * instances are lock-free; an instance is only created for the first registration of a key
+ *
+ * @param <T> The type of the shared instances
+ */
+final class Registry<T> {
+    private final Map<String, T> entries = new ConcurrentHashMap<>();
+
+    T get(String key) {
+        return entries.get(key);
+    }
+
+    T getOrRegister(String key, Supplier<T> factory) {
+        T existing = entries.get(key);
+        if (existing != null) {
+            return existing;
+        }
+
+        return entries.computeIfAbsent(key, ignored -> factory.get());
+    }
+
+    void remove(String key) {
+        entries.remove(key);
+    }
+}
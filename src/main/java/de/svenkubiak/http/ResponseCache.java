@@ -0,0 +1,438 @@
+package de.svenkubiak.http;
+
+import java.net.http.HttpHeaders;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * In-memory cache of GET responses bounded by the total size of the cached bodies and headers,
+ * evicting the least recently used entries. Entries are keyed on the URL and the request values
+ * of the headers listed in the {@code Vary} response header. Fresh entries are served without
+ * any I/O, stale entries with an {@code ETag} or {@code Last-Modified} validator are revalidated
+ * with a conditional request. Responses with {@code Cache-Control: no-store} are never cached.
+ * An optional disk tier keeps responses across restarts.
+ */
+public class ResponseCache {
+    private static final long ENTRY_OVERHEAD = 128;
+    private static final long VARIANTS_OVERHEAD = 64;
+    private static final Set<String> UNMERGED_HEADERS = Set.of("content-length", "content-encoding", "transfer-encoding");
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Variants> variants = new TreeMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final long maxBytes;
+    private long size;
+    private DiskTier disk;
+
+    record Entry(String url, List<String> vary, String key, int status, HttpHeaders headers, ByteBuffer body, long expiresAt) {
+        boolean isFresh(long now) {
+            return now < expiresAt;
+        }
+
+        String validator(String name) {
+            return headers.firstValue(name).orElse(null);
+        }
+
+        long weight() {
+            long weight = ENTRY_OVERHEAD + body.remaining() + 2L * key.length();
+            for (var header : headers.map().entrySet()) {
+                for (String value : header.getValue()) {
+                    weight += 2L * (header.getKey().length() + value.length());
+                }
+            }
+
+            return weight;
+        }
+    }
+
+    /**
+     * The Vary header names of a URL and the number of entries cached for it
+     */
+    private static final class Variants {
+        private final List<String> vary;
+        private final long weight;
+        private int count;
+
+        private Variants(String url, List<String> vary) {
+            this.vary = vary;
+            long names = 0;
+            for (String name : vary) {
+                names += name.length();
+            }
+            this.weight = VARIANTS_OVERHEAD + 2L * (url.length() + names);
+        }
+    }
+
+    private ResponseCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Creates a new in-memory response cache
+     *
+     * @param maxBytes The maximum total size of the cached responses in bytes; must be positive
+     * @return The ResponseCache instance
+     * @throws IllegalArgumentException if {@code maxBytes} is zero or negative
+     */
+    public static ResponseCache of(long maxBytes) {
+        return new ResponseCache(maxBytes);
+    }
+
+    /**
+     * Adds a persistent disk tier below the in-memory cache. Responses are additionally written to
+     * the given directory and survive restarts; responses only found on disk are served from
+     * read-only memory mappings without copying them to the heap. The disk tier keeps the most
+     * recent response per URL and evicts the least recently used files beyond the maximum size.
+     * The directory must not be used by another cache at the same time
+     *
+     * @param directory The directory to store the responses in; created if missing
+     * @param maxBytes The maximum total size of the files in bytes; must be positive
+     * @return The ResponseCache instance
+     * @throws IllegalArgumentException if {@code maxBytes} is zero or negative
+     * @throws java.io.UncheckedIOException if the directory can not be created or read
+     */
+    public ResponseCache withDiskTier(Path directory, long maxBytes) {
+        Objects.requireNonNull(directory, "directory can not be null");
+        this.disk = new DiskTier(directory, maxBytes);
+        return this;
+    }
+
+    /**
+     * @return The total size of the files of the disk tier in bytes, or 0 without a disk tier
+     */
+    public long diskSize() {
+        return disk == null ? 0 : disk.size();
+    }
+
+    /**
+     * @return The total size of the cached responses in bytes, including the per-URL index
+     */
+    public long size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of cached responses
+     */
+    public int count() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all cached responses, including those of the disk tier
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            entries.clear();
+            variants.clear();
+            size = 0;
+        } finally {
+            lock.unlock();
+        }
+
+        if (disk != null) {
+            disk.clear();
+        }
+    }
+
+    /**
+     * Looks up the cached response for the given URL in memory and then on disk. Responses found
+     * on disk are promoted to memory if they fit, so hot responses are not mapped again on every hit
+     *
+     * @param url The URL of the request
+     * @param requestHeaders The header values of the request by header name
+     * @return The cached entry, or null if none matches
+     */
+    Entry get(String url, UnaryOperator<String> requestHeaders) {
+        lock.lock();
+        try {
+            var current = variants.get(url);
+            var entry = entries.get(key(url, current == null ? null : current.vary, requestHeaders));
+            if (entry != null || disk == null) {
+                return entry;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        var entry = disk.get(url, requestHeaders, System.currentTimeMillis());
+        if (entry != null && entry.weight() <= maxBytes) {
+            lock.lock();
+            try {
+                if (!entries.containsKey(entry.key())) {
+                    add(entry);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        return entry;
+    }
+
+    /**
+     * Caches the given response if it is cacheable
+     *
+     * @return The cached entry, or null if the response is not cacheable
+     */
+    Entry put(String url, UnaryOperator<String> requestHeaders, int status, HttpHeaders headers, ByteBuffer body, long now) {
+        var vary = vary(headers);
+        long expiresAt = expiresAt(headers, now);
+        if (status != 200 || vary == null || expiresAt < 0 || body == null
+                || (expiresAt <= now && headers.firstValue("ETag").isEmpty() && headers.firstValue("Last-Modified").isEmpty())) {
+            return null;
+        }
+
+        var entry = new Entry(url, vary, key(url, vary, requestHeaders), status, headers, body.asReadOnlyBuffer(), expiresAt);
+        long weight = entry.weight();
+        if (weight <= maxBytes) {
+            lock.lock();
+            try {
+                add(entry);
+            } finally {
+                lock.unlock();
+            }
+        } else if (disk == null) {
+            return null;
+        }
+
+        if (disk != null) {
+            disk.put(entry);
+        }
+
+        return entry;
+    }
+
+    /**
+     * Updates the given entry with the headers of a 304 response
+     *
+     * @return The updated entry to serve the response from
+     */
+    Entry revalidated(Entry entry, HttpHeaders notModified, long now) {
+        Map<String, List<String>> merged = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        merged.putAll(entry.headers().map());
+        notModified.map().forEach((name, values) -> {
+            if (!UNMERGED_HEADERS.contains(name.toLowerCase(Locale.ENGLISH))) {
+                merged.put(name, values);
+            }
+        });
+
+        var headers = HttpHeaders.of(merged, (name, value) -> true);
+        long expiresAt = expiresAt(headers, now);
+        var updated = new Entry(entry.url(), entry.vary(), entry.key(), entry.status(), headers, entry.body(), Math.max(expiresAt, now));
+
+        lock.lock();
+        try {
+            if (entries.get(entry.key()) == entry) {
+                removed(entries.remove(entry.key()));
+                if (expiresAt >= 0) {
+                    add(updated);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (disk != null) {
+            if (expiresAt >= 0) {
+                disk.update(updated);
+            } else {
+                disk.remove(entry.url());
+            }
+        }
+
+        return updated;
+    }
+
+    /**
+     * Removes all cached responses for the given URL, e.g. after a successful unsafe request
+     */
+    void invalidate(String url) {
+        lock.lock();
+        try {
+            removeVariants(url);
+        } finally {
+            lock.unlock();
+        }
+
+        if (disk != null) {
+            disk.remove(url);
+        }
+    }
+
+    private void add(Entry entry) {
+        var current = variants.get(entry.url());
+        if (current != null && !current.vary.equals(entry.vary())) {
+            removeVariants(entry.url());
+            current = null;
+        }
+        if (current == null) {
+            current = new Variants(entry.url(), entry.vary());
+            variants.put(entry.url(), current);
+            size += current.weight;
+        }
+
+        var previous = entries.put(entry.key(), entry);
+        if (previous == null) {
+            current.count++;
+        } else {
+            size -= previous.weight();
+        }
+        size += entry.weight();
+        evict();
+    }
+
+    private void removed(Entry entry) {
+        size -= entry.weight();
+        var current = variants.get(entry.url());
+        if (current != null && --current.count == 0) {
+            variants.remove(entry.url());
+            size -= current.weight;
+        }
+    }
+
+    private void removeVariants(String url) {
+        for (Iterator<Entry> iterator = entries.values().iterator(); iterator.hasNext();) {
+            var entry = iterator.next();
+            if (entry.url().equals(url)) {
+                iterator.remove();
+                removed(entry);
+            }
+        }
+    }
+
+    private void evict() {
+        for (Iterator<Entry> iterator = entries.values().iterator(); size > maxBytes && iterator.hasNext();) {
+            var entry = iterator.next();
+            iterator.remove();
+            removed(entry);
+        }
+    }
+
+    int urls() {
+        lock.lock();
+        try {
+            return variants.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    static String key(String url, List<String> vary, UnaryOperator<String> requestHeaders) {
+        if (vary == null || vary.isEmpty()) {
+            return url;
+        }
+
+        var key = new StringBuilder(url);
+        for (String name : vary) {
+            var value = requestHeaders.apply(name);
+            key.append('\n').append(name).append(':').append(value == null ? "" : value);
+        }
+
+        return key.toString();
+    }
+
+    /**
+     * @return The lowercase header names of the Vary header, or null if the response varies on everything
+     */
+    static List<String> vary(HttpHeaders headers) {
+        var names = new ArrayList<String>();
+        for (String value : headers.allValues("Vary")) {
+            for (String name : value.split(",")) {
+                var header = name.strip().toLowerCase(Locale.ENGLISH);
+                if ("*".equals(header)) {
+                    return null;
+                }
+                if (!header.isEmpty() && !names.contains(header)) {
+                    names.add(header);
+                }
+            }
+        }
+        names.sort(null);
+
+        return names;
+    }
+
+    /**
+     * Computes when a response stops being fresh from its Cache-Control, Expires, Date and Age headers
+     *
+     * @return The expiry in epoch milliseconds, {@code now} if the response must be revalidated, or -1 if it must not be stored
+     */
+    static long expiresAt(HttpHeaders headers, long now) {
+        long maxAge = -1;
+        boolean noCache = false;
+        for (String value : headers.allValues("Cache-Control")) {
+            for (String directive : value.split(",")) {
+                var token = directive.strip().toLowerCase(Locale.ENGLISH);
+                if ("no-store".equals(token)) {
+                    return -1;
+                } else if (token.startsWith("no-cache")) {
+                    noCache = true;
+                } else if (token.startsWith("max-age=")) {
+                    maxAge = seconds(token.substring("max-age=".length()));
+                }
+            }
+        }
+
+        if (noCache) {
+            return now;
+        }
+
+        long age = headers.firstValue("Age").map(ResponseCache::seconds).orElse(0L);
+        if (maxAge >= 0) {
+            return Math.max(now, now + Math.min(maxAge - Math.max(age, 0), Integer.MAX_VALUE) * 1000);
+        }
+
+        var expires = headers.firstValue("Expires").orElse(null);
+        if (expires != null) {
+            long date = headers.firstValue("Date").map(ResponseCache::epochMillis).orElse(now);
+            long lifetime = epochMillis(expires) - (date < 0 ? now : date);
+            return Math.max(now, now + lifetime - Math.max(age, 0) * 1000);
+        }
+
+        return now;
+    }
+
+    private static long seconds(String value) {
+        try {
+            return Long.parseLong(value.strip().replace("\"", ""));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static long epochMillis(String value) {
+        try {
+            return ZonedDateTime.parse(value.strip(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+}
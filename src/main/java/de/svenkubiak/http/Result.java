@@ -1,16 +1,38 @@
 package de.svenkubiak.http;
 
+import de.svenkubiak.utils.ByteBufferInputStream;
 import de.svenkubiak.utils.Utils;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.http.HttpHeaders;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
 
 public class Result {
-    private final Map<String, String> headers = new HashMap<>();
-    private String body = "";
-    private byte[] binaryBody;
+    private Map<String, List<String>> headers;
+    private HttpHeaders responseHeaders;
+    private String body;
+    private ByteBuffer encodedBody;
+    private Charset charset;
+    private ByteBuffer binaryBody;
+    private InputStream stream;
+    private Path file;
     private int status = -1;
+    private long wireSize = -1;
+    private long decodedSize = -1;
+    private Timings timings;
 
     private Result() {}
 
@@ -20,11 +42,44 @@ public class Result {
 
     public Result withBody(String body) {
         this.body = (body == null || body.isEmpty()) ? "" : body;
+        this.encodedBody = null;
+        return this;
+    }
+
+    public Result withBody(byte[] body, Charset charset) {
+        return withBody(body == null ? null : ByteBuffer.wrap(body), charset);
+    }
+
+    /**
+     * Sets the encoded body which is decoded with the given charset on the first call to {@link #body()}
+     *
+     * @param body The encoded body
+     * @param charset The charset of the body
+     * @return The Result instance
+     */
+    public Result withBody(ByteBuffer body, Charset charset) {
+        this.encodedBody = body;
+        this.charset = Objects.requireNonNull(charset, "charset can not be null");
+        this.body = null;
         return this;
     }
 
     public Result withBinaryBody(byte[] binaryBody) {
-        this.binaryBody = binaryBody;
+        return withBinaryBody(binaryBody == null ? null : ByteBuffer.wrap(binaryBody));
+    }
+
+    public Result withBinaryBody(ByteBuffer binaryBody) {
+        this.binaryBody = binaryBody == null ? null : binaryBody.asReadOnlyBuffer();
+        return this;
+    }
+
+    public Result withStream(InputStream stream) {
+        this.stream = stream;
+        return this;
+    }
+
+    public Result withFile(Path file) {
+        this.file = file;
         return this;
     }
 
@@ -33,39 +88,211 @@ public class Result {
         return this;
     }
 
+    public Result withSizes(long wireSize, long decodedSize) {
+        this.wireSize = wireSize;
+        this.decodedSize = decodedSize;
+        return this;
+    }
+
+    public Result withTimings(Timings timings) {
+        this.timings = timings;
+        return this;
+    }
+
     public Result withHeader(String key, String value) {
-        this.headers.put(key, value);
+        if (headers == null) {
+            headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        }
+        headers.put(key, List.of(value));
         return this;
     }
 
+    /**
+     * Sets the response headers which are looked up without copying them.
+     * Headers added via {@link #withHeader(String, String)} take precedence
+     *
+     * @param responseHeaders The headers of the HTTP response
+     * @return The Result instance
+     */
+    public Result withHeaders(HttpHeaders responseHeaders) {
+        this.responseHeaders = responseHeaders;
+        return this;
+    }
+
+    /**
+     * @return A shallow copy sharing the immutable response data, e.g. for every caller of a coalesced request
+     */
+    Result copy() {
+        var copy = new Result();
+        if (headers != null) {
+            copy.headers = new TreeMap<>(headers);
+        }
+        copy.responseHeaders = responseHeaders;
+        copy.body = body;
+        copy.encodedBody = encodedBody;
+        copy.charset = charset;
+        copy.binaryBody = binaryBody;
+        copy.stream = stream;
+        copy.file = file;
+        copy.status = status;
+        copy.wireSize = wireSize;
+        copy.decodedSize = decodedSize;
+        copy.timings = timings;
+        return copy;
+    }
+
+    HttpHeaders responseHeaders() {
+        return responseHeaders;
+    }
+
+    /**
+     * @return A view of the undecoded text or the binary body, or null if neither was set
+     */
+    ByteBuffer bodyAsBuffer() {
+        if (binaryBody != null) {
+            return binaryBody.duplicate();
+        }
+
+        return encodedBody == null ? null : encodedBody.duplicate();
+    }
+
     /**
      * @return The body of the HTTP response
      */
     public String body() {
-        return body;
+        String decoded = body;
+        if (decoded == null) {
+            decoded = encodedBody == null ? "" : Utils.decode(encodedBody, charset);
+            body = decoded;
+        }
+
+        return decoded;
     }
 
     /**
      * @return A copy of the binary response body, or {@code null} if none was set
      */
     public byte[] binaryBody() {
-        return binaryBody == null ? null : Arrays.copyOf(binaryBody, binaryBody.length);
+        if (binaryBody == null) {
+            return null;
+        }
+
+        var copy = new byte[binaryBody.remaining()];
+        binaryBody.duplicate().get(copy);
+        return copy;
+    }
+
+    /**
+     * @return A read-only view of the binary response body without copying it, or {@code null} if none was set
+     */
+    public ByteBuffer binaryBodyAsBuffer() {
+        return binaryBody == null ? null : binaryBody.duplicate();
     }
 
     /**
-     * Tries to get the value of a header based on the given key
+     * @return A stream over the binary response body without copying it, or {@code null} if none was set
+     */
+    public InputStream binaryBodyAsStream() {
+        return binaryBody == null ? null : new ByteBufferInputStream(binaryBody);
+    }
+
+    /**
+     * Writes the binary response body, or the file the body was written to, to the given stream
+     *
+     * @param outputStream The stream to write to
+     * @return The number of bytes written
+     * @throws IOException if writing fails
+     */
+    public long transferTo(OutputStream outputStream) throws IOException {
+        Objects.requireNonNull(outputStream, "outputStream can not be null");
+        if (file != null) {
+            return Files.copy(file, outputStream);
+        }
+
+        return binaryBody == null ? 0 : new ByteBufferInputStream(binaryBody).transferTo(outputStream);
+    }
+
+    /**
+     * Writes the binary response body, or the file the body was written to, to the given channel
+     *
+     * @param channel The channel to write to
+     * @return The number of bytes written
+     * @throws IOException if writing fails
+     */
+    public long transferTo(WritableByteChannel channel) throws IOException {
+        Objects.requireNonNull(channel, "channel can not be null");
+        if (file != null) {
+            try (var fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long size = fileChannel.size();
+                long position = 0;
+                while (position < size) {
+                    position += fileChannel.transferTo(position, size - position, channel);
+                }
+                return size;
+            }
+        }
+
+        if (binaryBody == null) {
+            return 0;
+        }
+
+        var buffer = binaryBody.duplicate();
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer);
+        }
+        return written;
+    }
+
+    /**
+     * @return The response body as a stream if streaming response was enabled, or {@code null} otherwise;
+     *         the caller is responsible for closing the stream
+     */
+    public InputStream stream() {
+        return stream;
+    }
+
+    /**
+     * @return The file the response body was written to, or {@code null} if the body was not written to a file
+     */
+    public Path file() {
+        return file;
+    }
+
+    /**
+     * Tries to get the first value of a header based on the given case-insensitive key
      *
      * @param key The key of the header
      * @return The value of the header or null if not present
      */
     public String header(String key) {
-        return headers.get(key);
+        List<String> values = headers(key);
+        return values.isEmpty() ? null : values.getFirst();
+    }
+
+    /**
+     * Gets all values of a header based on the given case-insensitive key,
+     * e.g. every Set-Cookie header of the response
+     *
+     * @param key The key of the header
+     * @return The values of the header or an empty list if not present
+     */
+    public List<String> headers(String key) {
+        Objects.requireNonNull(key, "key can not be null");
+        if (headers != null) {
+            List<String> values = headers.get(key);
+            if (values != null) {
+                return values;
+            }
+        }
+
+        return responseHeaders == null ? List.of() : responseHeaders.allValues(key);
     }
 
     /**
      * @return Any error that might have occurred during the connection
      */
-    public String error() { return body; }
+    public String error() { return body(); }
 
     /**
      * @return The HTTP status of the request or -1 if establishing a connection failed
@@ -74,6 +301,28 @@ public class Result {
         return status;
     }
 
+    /**
+     * @return The number of body bytes received over the wire, or -1 if unknown (e.g. streaming response)
+     */
+    public long wireSize() {
+        return wireSize;
+    }
+
+    /**
+     * @return The number of body bytes after decompression, or -1 if unknown (e.g. streaming response)
+     */
+    public long decodedSize() {
+        return decodedSize;
+    }
+
+    /**
+     * @return The time spent in the individual phases of the request, or null if the request was
+     * not sent (e.g. blocked by a failsafe or served from a cache)
+     */
+    public Timings timings() {
+        return timings;
+    }
+
     /**
      * @return True if the HTTP status matched any 2xx status code, false otherwise
      */
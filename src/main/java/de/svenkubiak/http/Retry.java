@@ -0,0 +1,142 @@
+package de.svenkubiak.http;
+
+import de.svenkubiak.utils.Utils;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Retry policy with exponential backoff and full jitter. Failed connections, timeouts and
+ * responses with a retryable status (502, 503 and 504 by default) are retried for idempotent
+ * methods; a Retry-After header of the response is honored. Every request deposits a fraction
+ * of a token into the retry budget and every retry withdraws a whole token, so retries can
+ * never exceed the configured share of the traffic. Reuse one instance for all requests that
+ * should share a budget.
+ */
+public class Retry {
+    private static final double DEFAULT_BUDGET_RATIO = 0.2;
+    private static final int DEFAULT_BUDGET_TOKENS = 10;
+    private final int maxAttempts;
+    private Duration baseDelay = Duration.ofMillis(100);
+    private Duration maxDelay = Duration.ofSeconds(10);
+    private Set<Integer> status = Set.of(502, 503, 504);
+    private boolean nonIdempotent;
+    private Budget budget = new Budget(DEFAULT_BUDGET_RATIO, DEFAULT_BUDGET_TOKENS);
+
+    private Retry(int maxAttempts) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("maxAttempts must be positive");
+        }
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Creates a new retry policy with a backoff starting at 100 milliseconds and capped at
+     * 10 seconds, retrying status 502, 503 and 504 for idempotent methods, and a budget
+     * allowing retries for 20% of the requests plus a reserve of 10 retries
+     *
+     * @param maxAttempts The maximum number of attempts including the first one; must be positive
+     * @return The Retry instance
+     * @throws IllegalArgumentException if {@code maxAttempts} is zero or negative
+     */
+    public static Retry of(int maxAttempts) {
+        return new Retry(maxAttempts);
+    }
+
+    /**
+     * Sets the exponential backoff. The delay before retry n is chosen randomly between zero
+     * and {@code baseDelay * 2^(n-1)}, capped at {@code maxDelay}
+     *
+     * @param baseDelay The base delay
+     * @param maxDelay The maximum delay; responses asking for a longer Retry-After are not retried
+     * @return The Retry instance
+     * @throws IllegalArgumentException if {@code baseDelay} is negative or greater than {@code maxDelay}
+     */
+    public Retry withBackoff(Duration baseDelay, Duration maxDelay) {
+        Objects.requireNonNull(baseDelay, "baseDelay can not be null");
+        Objects.requireNonNull(maxDelay, "maxDelay can not be null");
+        if (baseDelay.isNegative() || maxDelay.compareTo(baseDelay) < 0) {
+            throw new IllegalArgumentException("baseDelay must not be negative or greater than maxDelay");
+        }
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+        return this;
+    }
+
+    /**
+     * Sets the HTTP status which are retried, replacing the defaults 502, 503 and 504
+     *
+     * @param status The HTTP status to retry
+     * @return The Retry instance
+     */
+    public Retry withStatus(int... status) {
+        Objects.requireNonNull(status, "status can not be null");
+        this.status = Arrays.stream(status).boxed().collect(Collectors.toUnmodifiableSet());
+        return this;
+    }
+
+    /**
+     * Sets the retry budget
+     *
+     * @param ratio The fraction of a retry earned by every request, e.g. 0.1 for at most 10% retries
+     * @param maxTokens The maximum number of retries which can be saved up; must be positive
+     * @return The Retry instance
+     */
+    public Retry withBudget(double ratio, int maxTokens) {
+        this.budget = new Budget(ratio, maxTokens);
+        return this;
+    }
+
+    /**
+     * Enables retries for non-idempotent methods such as POST and PATCH
+     *
+     * @return The Retry instance
+     */
+    public Retry retryNonIdempotent() {
+        this.nonIdempotent = true;
+        return this;
+    }
+
+    /**
+     * @return The number of retries currently available in the budget
+     */
+    public double availableBudget() {
+        return budget.available();
+    }
+
+    boolean retryable(int statusCode) {
+        return status.contains(statusCode);
+    }
+
+    void onRequest() {
+        budget.deposit();
+    }
+
+    /**
+     * Decides whether the given failed attempt is retried
+     *
+     * @param attempt The number of the failed attempt, starting at 1
+     * @param method The HTTP method of the request
+     * @param retryAfter The Retry-After header of the response, or null
+     * @return The delay before the next attempt, or null if the request must not be retried
+     */
+    Duration next(int attempt, String method, String retryAfter) {
+        if (attempt >= maxAttempts || !(nonIdempotent || Http.isIdempotent(method))) {
+            return null;
+        }
+
+        var delay = Utils.retryAfter(retryAfter);
+        if (delay == null) {
+            long ceiling = Math.min(maxDelay.toNanos(), baseDelay.toNanos() << Math.min(attempt - 1, 30));
+            delay = Duration.ofNanos(ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } else if (delay.compareTo(maxDelay) > 0) {
+            return null;
+        }
+
+        return budget.tryWithdraw() ? delay : null;
+    }
+}
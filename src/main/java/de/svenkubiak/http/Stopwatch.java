@@ -0,0 +1,27 @@
+package de.svenkubiak.http;
+
+/**
+ * Attributes the time between consecutive laps to request phases. Laps must be
+ * taken sequentially, but may happen on different threads
+ */
+final class Stopwatch {
+    private final long[] phases = new long[Metrics.Phase.TOTAL.ordinal()];
+    private final long start = System.nanoTime();
+    private long last = start;
+
+    void lap(Metrics.Phase phase) {
+        long now = System.nanoTime();
+        phases[phase.ordinal()] += now - last;
+        last = now;
+    }
+
+    Timings stop() {
+        return new Timings(
+                phases[Metrics.Phase.LOOKUP.ordinal()],
+                phases[Metrics.Phase.BUILD.ordinal()],
+                phases[Metrics.Phase.WAIT.ordinal()],
+                phases[Metrics.Phase.HEADERS.ordinal()],
+                phases[Metrics.Phase.BODY.ordinal()],
+                System.nanoTime() - start);
+    }
+}
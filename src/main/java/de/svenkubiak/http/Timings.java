@@ -0,0 +1,44 @@
+package de.svenkubiak.http;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Time spent in the individual phases of a single request, see {@link Result#timings()}.
+ * Phases which were not reached, e.g. because the request failed, are zero, while the total
+ * also covers the phase in which the request failed
+ *
+ * @param lookupNanos The time to look up or create the HTTP client
+ * @param buildNanos The time to build the request, including serializing and compressing the body
+ * @param waitNanos The time spent waiting for a rate limiter or a bulkhead
+ * @param headersNanos The time until the response headers were received, including retries and hedging
+ * @param bodyNanos The time to read the response body, including decompression while reading; for a
+ *                  streamed response only the time to open the stream
+ * @param totalNanos The total time of the request
+ */
+public record Timings(long lookupNanos, long buildNanos, long waitNanos, long headersNanos, long bodyNanos, long totalNanos) {
+    /**
+     * @param phase The phase
+     * @return The time spent in the given phase in nanoseconds
+     */
+    public long nanos(Metrics.Phase phase) {
+        Objects.requireNonNull(phase, "phase can not be null");
+
+        return switch (phase) {
+            case LOOKUP -> lookupNanos;
+            case BUILD -> buildNanos;
+            case WAIT -> waitNanos;
+            case HEADERS -> headersNanos;
+            case BODY -> bodyNanos;
+            case TOTAL -> totalNanos;
+        };
+    }
+
+    /**
+     * @param phase The phase
+     * @return The time spent in the given phase
+     */
+    public Duration duration(Metrics.Phase phase) {
+        return Duration.ofNanos(nanos(phase));
+    }
+}
@@ -0,0 +1,217 @@
+package de.svenkubiak.http;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Immutable TLS configuration of a {@link Profile}: trusted certificates, a client certificate for
+ * mutual TLS, allowed protocols and cipher suites, and the size and timeout of the TLS session cache.
+ * The {@link SSLContext} is created once per configuration and shared by all clients using it, so
+ * cached TLS sessions are resumed on new connections instead of performing full handshakes.
+ * Configurations are compared by value; key stores are compared by identity.
+ */
+public final class Tls {
+    private KeyStore trustStore;
+    private KeyStore keyStore;
+    private char[] keyPassword;
+    private String[] protocols;
+    private String[] cipherSuites;
+    private int sessionCacheSize = -1;
+    private Duration sessionTimeout;
+    private volatile SSLContext sslContext;
+
+    private Tls() {}
+
+    /**
+     * Creates a new TLS configuration using the JDK defaults
+     *
+     * @return The Tls instance
+     */
+    public static Tls create() {
+        return new Tls();
+    }
+
+    /**
+     * Loads a key store from the given file, e.g. a PKCS12 or JKS file
+     *
+     * @param file The key store file
+     * @param password The password of the key store, may be null
+     * @return The loaded key store
+     * @throws IOException if the file can not be read
+     * @throws GeneralSecurityException if the key store can not be loaded
+     */
+    public static KeyStore load(Path file, char[] password) throws IOException, GeneralSecurityException {
+        Objects.requireNonNull(file, "file can not be null");
+        return KeyStore.getInstance(file.toFile(), password);
+    }
+
+    /**
+     * @param trustStore The certificates to trust instead of the JDK default trust store
+     * @return A copy of this configuration with the given trust store
+     */
+    public Tls withTrustStore(KeyStore trustStore) {
+        Objects.requireNonNull(trustStore, "trustStore can not be null");
+        var tls = copy();
+        tls.trustStore = trustStore;
+        return tls;
+    }
+
+    /**
+     * @param keyStore The key store holding the client certificate and private key for mutual TLS
+     * @param keyPassword The password of the private key, may be null
+     * @return A copy of this configuration with the given key store
+     */
+    public Tls withKeyStore(KeyStore keyStore, char[] keyPassword) {
+        Objects.requireNonNull(keyStore, "keyStore can not be null");
+        var tls = copy();
+        tls.keyStore = keyStore;
+        tls.keyPassword = keyPassword == null ? null : keyPassword.clone();
+        return tls;
+    }
+
+    /**
+     * @param protocols The allowed protocols, e.g. {@code TLSv1.3}
+     * @return A copy of this configuration with the given protocols
+     */
+    public Tls withProtocols(String... protocols) {
+        Objects.requireNonNull(protocols, "protocols can not be null");
+        var tls = copy();
+        tls.protocols = protocols.clone();
+        return tls;
+    }
+
+    /**
+     * @param cipherSuites The allowed cipher suites
+     * @return A copy of this configuration with the given cipher suites
+     */
+    public Tls withCipherSuites(String... cipherSuites) {
+        Objects.requireNonNull(cipherSuites, "cipherSuites can not be null");
+        var tls = copy();
+        tls.cipherSuites = cipherSuites.clone();
+        return tls;
+    }
+
+    /**
+     * @param size The maximum number of cached TLS sessions; 0 for no limit
+     * @param timeout The time after which cached TLS sessions can no longer be resumed
+     * @return A copy of this configuration with the given session cache settings
+     * @throws IllegalArgumentException if {@code size} is negative
+     */
+    public Tls withSessionCache(int size, Duration timeout) {
+        if (size < 0) {
+            throw new IllegalArgumentException("size must not be negative");
+        }
+        Objects.requireNonNull(timeout, "timeout can not be null");
+        var tls = copy();
+        tls.sessionCacheSize = size;
+        tls.sessionTimeout = timeout;
+        return tls;
+    }
+
+    /**
+     * Returns the SSL context of this configuration, creating it on the first call
+     *
+     * @return The shared SSL context
+     * @throws IllegalArgumentException if the trust or key material can not be used
+     */
+    SSLContext sslContext() {
+        var context = sslContext;
+        if (context == null) {
+            synchronized (this) {
+                context = sslContext;
+                if (context == null) {
+                    context = newSslContext();
+                    sslContext = context;
+                }
+            }
+        }
+
+        return context;
+    }
+
+    /**
+     * @return The SSL parameters restricting protocols and cipher suites, or null if neither is restricted
+     */
+    SSLParameters sslParameters() {
+        if (protocols == null && cipherSuites == null) {
+            return null;
+        }
+
+        return new SSLParameters(cipherSuites, protocols);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Tls tls)) {
+            return false;
+        }
+
+        return trustStore == tls.trustStore
+                && keyStore == tls.keyStore
+                && sessionCacheSize == tls.sessionCacheSize
+                && Arrays.equals(keyPassword, tls.keyPassword)
+                && Arrays.equals(protocols, tls.protocols)
+                && Arrays.equals(cipherSuites, tls.cipherSuites)
+                && Objects.equals(sessionTimeout, tls.sessionTimeout);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(System.identityHashCode(trustStore), System.identityHashCode(keyStore), sessionCacheSize,
+                Arrays.hashCode(protocols), Arrays.hashCode(cipherSuites), sessionTimeout);
+    }
+
+    private SSLContext newSslContext() {
+        try {
+            TrustManagerFactory trustManagerFactory = null;
+            if (trustStore != null) {
+                trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+                trustManagerFactory.init(trustStore);
+            }
+
+            KeyManagerFactory keyManagerFactory = null;
+            if (keyStore != null) {
+                keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+                keyManagerFactory.init(keyStore, keyPassword);
+            }
+
+            var context = SSLContext.getInstance("TLS");
+            context.init(keyManagerFactory == null ? null : keyManagerFactory.getKeyManagers(),
+                    trustManagerFactory == null ? null : trustManagerFactory.getTrustManagers(),
+                    null);
+
+            if (sessionCacheSize >= 0) {
+                context.getClientSessionContext().setSessionCacheSize(sessionCacheSize);
+                context.getClientSessionContext().setSessionTimeout((int) Math.min(sessionTimeout.toSeconds(), Integer.MAX_VALUE));
+            }
+
+            return context;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("Unable to initialize TLS: " + e.getMessage(), e);
+        }
+    }
+
+    private Tls copy() {
+        var tls = new Tls();
+        tls.trustStore = trustStore;
+        tls.keyStore = keyStore;
+        tls.keyPassword = keyPassword;
+        tls.protocols = protocols;
+        tls.cipherSuites = cipherSuites;
+        tls.sessionCacheSize = sessionCacheSize;
+        tls.sessionTimeout = sessionTimeout;
+        return tls;
+    }
+}
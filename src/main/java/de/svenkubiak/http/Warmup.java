@@ -0,0 +1,20 @@
+package de.svenkubiak.http;
+
+import java.time.Duration;
+
+/**
+ * Outcome of pre-warming the connection to a target, see {@link Http#prewarm()}
+ *
+ * @param url The URL of the target
+ * @param status The HTTP status of the warm-up request, or -1 if no connection could be established
+ * @param duration The time until the response headers were received or the warm-up failed
+ * @param error The reason of the failure, or null if the connection was established
+ */
+public record Warmup(String url, int status, Duration duration, String error) {
+    /**
+     * @return True if a connection was established, regardless of the HTTP status
+     */
+    public boolean isSuccess() {
+        return status != -1;
+    }
+}
@@ -0,0 +1,42 @@
+package de.svenkubiak.utils;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Small lock-free pool of fixed size read buffers shared across requests
+ */
+final class BufferPool {
+    static final int BUFFER_SIZE = 16 * 1024;
+    private static final int SLOTS = 64;
+    private static final AtomicReferenceArray<byte[]> BUFFERS = new AtomicReferenceArray<>(SLOTS);
+
+    private BufferPool() {
+    }
+
+    static byte[] acquire() {
+        int start = start();
+        for (int i = 0; i < SLOTS; i++) {
+            int slot = (start + i) & (SLOTS - 1);
+            byte[] buffer = BUFFERS.get(slot);
+            if (buffer != null && BUFFERS.compareAndSet(slot, buffer, null)) {
+                return buffer;
+            }
+        }
+
+        return new byte[BUFFER_SIZE];
+    }
+
+    static void release(byte[] buffer) {
+        int start = start();
+        for (int i = 0; i < SLOTS; i++) {
+            int slot = (start + i) & (SLOTS - 1);
+            if (BUFFERS.get(slot) == null && BUFFERS.compareAndSet(slot, null, buffer)) {
+                return;
+            }
+        }
+    }
+
+    private static int start() {
+        return (int) Thread.currentThread().threadId() & (SLOTS - 1);
+    }
+}
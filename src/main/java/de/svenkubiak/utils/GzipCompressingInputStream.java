@@ -0,0 +1,106 @@
+package de.svenkubiak.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Input stream returning the gzip compressed content of the underlying stream.
+ * The content is compressed while it is read, so only a small, fixed amount of
+ * memory is used regardless of the size of the underlying stream
+ */
+public final class GzipCompressingInputStream extends InputStream {
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final int TRAILER_SIZE = 8;
+    private final InputStream source;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    private final CRC32 crc = new CRC32();
+    private final byte[] input = new byte[BufferPool.BUFFER_SIZE];
+    private final byte[] output = new byte[BufferPool.BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private boolean header;
+    private boolean trailer;
+
+    public GzipCompressingInputStream(InputStream source) {
+        this.source = Objects.requireNonNull(source, "source can not be null");
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        if (length == 0) {
+            return 0;
+        }
+
+        while (position == limit) {
+            if (!fill()) {
+                return -1;
+            }
+        }
+
+        int read = Math.min(length, limit - position);
+        System.arraycopy(output, position, bytes, offset, read);
+        position += read;
+        return read;
+    }
+
+    private boolean fill() throws IOException {
+        position = 0;
+        limit = 0;
+        if (!header) {
+            System.arraycopy(HEADER, 0, output, 0, HEADER.length);
+            limit = HEADER.length;
+            header = true;
+            return true;
+        }
+
+        while (!deflater.finished()) {
+            if (deflater.needsInput()) {
+                int read = source.read(input);
+                if (read == -1) {
+                    deflater.finish();
+                } else {
+                    crc.update(input, 0, read);
+                    deflater.setInput(input, 0, read);
+                }
+            }
+
+            limit = deflater.deflate(output);
+            if (limit > 0) {
+                return true;
+            }
+        }
+
+        if (!trailer) {
+            writeInt((int) crc.getValue(), 0);
+            writeInt((int) deflater.getBytesRead(), 4);
+            limit = TRAILER_SIZE;
+            trailer = true;
+            return true;
+        }
+
+        return false;
+    }
+
+    private void writeInt(int value, int offset) {
+        output[offset] = (byte) value;
+        output[offset + 1] = (byte) (value >> 8);
+        output[offset + 2] = (byte) (value >> 16);
+        output[offset + 3] = (byte) (value >> 24);
+    }
+
+    @Override
+    public void close() throws IOException {
+        deflater.end();
+        source.close();
+    }
+}
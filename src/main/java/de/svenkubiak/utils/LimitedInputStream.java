@@ -0,0 +1,61 @@
+package de.svenkubiak.utils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream which fails with an {@link IOException} as soon as more than
+ * the given maximum number of bytes have been read from the underlying stream
+ */
+public final class LimitedInputStream extends FilterInputStream {
+    private final long maxBytes;
+    private long count;
+
+    public LimitedInputStream(InputStream inputStream, long maxBytes) {
+        super(inputStream);
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int read = super.read();
+        if (read != -1) {
+            count(1);
+        }
+
+        return read;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int read = super.read(buffer, offset, length);
+        if (read > 0) {
+            count(read);
+        }
+
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        if (skipped > 0) {
+            count(skipped);
+        }
+
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void count(long read) throws IOException {
+        count += read;
+        if (count > maxBytes) {
+            throw new IOException(Utils.exceedsMessage(maxBytes));
+        }
+    }
+}
@@ -8,21 +8,44 @@ import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509ExtendedTrustManager;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.PushbackInputStream;
 import java.net.Socket;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URLEncoder;
 import java.net.http.HttpClient;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 public final class Utils {
     public static final String FAILSAFE_ACTIVE_MESSAGE = "Failsafe is active; request was not sent";
+    public static final String RATE_LIMITED_MESSAGE = "Rate limit exceeded; request was not sent";
+    public static final String BULKHEAD_FULL_MESSAGE = "Bulkhead is full; request was not sent";
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+    private static final long TRANSFER_SIZE = 1024L * 1024;
     private static final Pattern PATTERN = Pattern.compile("[^A-Za-z0-9 ]");
     @SuppressWarnings("rawtypes")
     private static final Set SUCCESS_CODES;
@@ -71,7 +94,18 @@ public final class Utils {
     private Utils() {
     }
 
-    private static SSLContext getSSLContext() {
+    private static final class TrustAll {
+        private static final SSLContext SSL_CONTEXT = createSSLContext();
+    }
+
+    /**
+     * @return The trust-all SSL context, created once and shared so TLS sessions can be resumed
+     */
+    static SSLContext getSSLContext() {
+        return TrustAll.SSL_CONTEXT;
+    }
+
+    private static SSLContext createSSLContext() {
         SSLContext sslContext = null;
         try {
             sslContext = SSLContext.getInstance("TLS");
@@ -109,6 +143,92 @@ public final class Utils {
         return buffer.toString();
     }
 
+    /**
+     * Resolves the charset declared by the given Content-Type header value
+     *
+     * @param contentType The value of the Content-Type header, may be null
+     * @return The declared charset, or UTF-8 if none or an unsupported charset was declared
+     */
+    public static Charset charset(String contentType) {
+        if (contentType != null) {
+            for (String parameter : contentType.split(";")) {
+                int separator = parameter.indexOf('=');
+                if (separator > 0 && "charset".equalsIgnoreCase(parameter.substring(0, separator).strip())) {
+                    var name = parameter.substring(separator + 1).strip().replace("\"", "");
+                    try {
+                        return Charset.forName(name);
+                    } catch (IllegalArgumentException e) {
+                        return StandardCharsets.UTF_8;
+                    }
+                }
+            }
+        }
+
+        return StandardCharsets.UTF_8;
+    }
+
+    /**
+     * Decodes the remaining bytes of the given buffer without modifying its position,
+     * replacing malformed input
+     *
+     * @param buffer The bytes to decode
+     * @param charset The charset to decode with
+     * @return The decoded string
+     */
+    public static String decode(ByteBuffer buffer, Charset charset) {
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), charset);
+        }
+
+        return charset.decode(buffer.duplicate()).toString();
+    }
+
+    /**
+     * Wraps the given stream into a stream decompressing the given content encoding
+     * while it is read. Deflate accepts both zlib wrapped and raw deflate data
+     *
+     * @param inputStream The compressed stream
+     * @param contentEncoding The content encoding, either gzip, x-gzip or deflate
+     * @return The decompressing stream
+     * @throws IOException if the stream does not start with a valid header
+     */
+    public static InputStream decompress(InputStream inputStream, String contentEncoding) throws IOException {
+        if ("deflate".equals(contentEncoding)) {
+            var pushback = new PushbackInputStream(inputStream, 2);
+            byte[] header = pushback.readNBytes(2);
+            pushback.unread(header);
+            boolean zlib = header.length == 2 && (header[0] & 0x0F) == 8 && (((header[0] & 0xFF) << 8) | (header[1] & 0xFF)) % 31 == 0;
+            return new InflaterInputStream(pushback, new Inflater(!zlib), BufferPool.BUFFER_SIZE);
+        }
+
+        return new GZIPInputStream(inputStream, BufferPool.BUFFER_SIZE);
+    }
+
+    /**
+     * Parses the value of a Retry-After header, given either in seconds or as HTTP date
+     *
+     * @param retryAfter The value of the Retry-After header, may be null
+     * @return The time to wait, or null if the value is missing or invalid
+     */
+    public static Duration retryAfter(String retryAfter) {
+        if (retryAfter == null || retryAfter.isBlank()) {
+            return null;
+        }
+
+        var value = retryAfter.strip();
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value)));
+        } catch (NumberFormatException e) {
+            try {
+                var date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+                var delay = Duration.between(ZonedDateTime.now(date.getZone()), date);
+                return delay.isNegative() ? Duration.ZERO : delay;
+            } catch (DateTimeParseException ex) {
+                return null;
+            }
+        }
+    }
+
     public static String clean(String string) {
         return PATTERN.matcher(string).replaceAll("");
     }
@@ -128,18 +248,120 @@ public final class Utils {
         return result.withStatus(-1).withBody(FAILSAFE_ACTIVE_MESSAGE);
     }
 
+    public static Result blockedByRateLimiter(Result result) {
+        return result.withStatus(-1).withBody(RATE_LIMITED_MESSAGE);
+    }
+
+    public static Result blockedByBulkhead(Result result) {
+        return result.withStatus(-1).withBody(BULKHEAD_FULL_MESSAGE);
+    }
+
     public static byte[] readLimited(InputStream inputStream, long maxBytes) throws IOException {
-        byte[] buffer = new byte[8192];
-        var output = new java.io.ByteArrayOutputStream();
-        int read;
+        return readLimited(inputStream, -1, maxBytes);
+    }
 
-        while ((read = inputStream.read(buffer)) != -1) {
-            if (output.size() + read > maxBytes) {
-                throw new IOException("Response body exceeds maximum size of " + maxBytes + " bytes");
+    /**
+     * Reads the given stream completely while copying every byte only once. If the content
+     * length is known the result is allocated with the exact size upfront and bodies larger
+     * than {@code maxBytes} are rejected before reading. Otherwise the stream is read into
+     * pooled buffers which are assembled into the result once the stream is exhausted
+     *
+     * @param inputStream The stream to read
+     * @param contentLength The announced length of the stream, or -1 if unknown
+     * @param maxBytes The maximum number of bytes to read
+     * @return The content of the stream
+     * @throws IOException if reading fails or the stream exceeds {@code maxBytes}
+     */
+    public static byte[] readLimited(InputStream inputStream, long contentLength, long maxBytes) throws IOException {
+        checkLimit(contentLength, maxBytes);
+        if (contentLength >= 0 && contentLength <= MAX_ARRAY_SIZE) {
+            byte[] data = new byte[(int) contentLength];
+            int read = inputStream.readNBytes(data, 0, data.length);
+            if (read < data.length) {
+                throw new IOException("Response body ended after " + read + " of " + contentLength + " bytes");
             }
-            output.write(buffer, 0, read);
+
+            return data;
         }
 
-        return output.toByteArray();
+        List<byte[]> buffers = new ArrayList<>();
+        long size = 0;
+        try {
+            int read;
+            do {
+                byte[] buffer = BufferPool.acquire();
+                buffers.add(buffer);
+                read = inputStream.readNBytes(buffer, 0, buffer.length);
+                size += read;
+                if (size > maxBytes) {
+                    throw new IOException(exceedsMessage(maxBytes));
+                }
+            } while (read == BufferPool.BUFFER_SIZE);
+
+            byte[] data = new byte[(int) size];
+            int offset = 0;
+            for (byte[] buffer : buffers) {
+                int length = Math.min(buffer.length, data.length - offset);
+                System.arraycopy(buffer, 0, data, offset, length);
+                offset += length;
+            }
+
+            return data;
+        } finally {
+            buffers.forEach(BufferPool::release);
+        }
+    }
+
+    /**
+     * Rejects a response upfront if its announced content length exceeds the given limit
+     *
+     * @param contentLength The announced length of the response body, or -1 if unknown
+     * @param maxBytes The maximum allowed number of bytes
+     * @throws IOException if {@code contentLength} exceeds {@code maxBytes}
+     */
+    public static void checkLimit(long contentLength, long maxBytes) throws IOException {
+        if (contentLength > maxBytes) {
+            throw new IOException(exceedsMessage(maxBytes));
+        }
+    }
+
+    static String exceedsMessage(long maxBytes) {
+        return "Response body exceeds maximum size of " + maxBytes + " bytes";
+    }
+
+    /**
+     * Writes the given stream to the target file through a {@link FileChannel} without
+     * buffering the content on the heap. The content is written to a temporary file next
+     * to the target first and moved to the target once completely written, so the target
+     * never contains a partial body. The temporary file is removed on failure
+     *
+     * @param inputStream The stream to write
+     * @param target The file to write to; an existing file is replaced
+     * @param maxBytes The maximum number of bytes to write
+     * @return The target file
+     * @throws IOException if writing fails or the stream exceeds {@code maxBytes}
+     */
+    public static Path writeLimited(InputStream inputStream, Path target, long maxBytes) throws IOException {
+        var directory = target.toAbsolutePath().getParent();
+        var temp = Files.createTempFile(directory, ".simple-http-", ".part");
+        try {
+            try (var channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+                 var source = Channels.newChannel(new LimitedInputStream(inputStream, maxBytes))) {
+                long position = 0;
+                long transferred;
+                while ((transferred = channel.transferFrom(source, position, TRANSFER_SIZE)) > 0) {
+                    position += transferred;
+                }
+            }
+
+            try {
+                return Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                return Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
     }
 }
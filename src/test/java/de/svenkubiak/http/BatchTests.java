@@ -0,0 +1,129 @@
+package de.svenkubiak.http;
+
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@WireMockTest
+class BatchTests {
+    @Test
+    void testSendKeepsOrder(WireMockRuntimeInfo runtime) {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        List<Http> requests = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            wireMock.register(get("/batch-" + i).willReturn(ok().withBody(String.valueOf(i)).withFixedDelay(20 - i)));
+            requests.add(Http.get(runtime.getHttpBaseUrl() + "/batch-" + i));
+        }
+
+        //when
+        List<Result> results = Batch.of(requests)
+                .withMaxInFlight(4)
+                .withMaxInFlightPerHost(2)
+                .send();
+
+        //then
+        assertThat(results).hasSize(20);
+        for (int i = 0; i < 20; i++) {
+            assertThat(results.get(i).status()).isEqualTo(200);
+            assertThat(results.get(i).body()).isEqualTo(String.valueOf(i));
+        }
+    }
+
+    @Test
+    void testSendAll(WireMockRuntimeInfo runtime) {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/batch-ok").willReturn(ok().withBody("ok")));
+        wireMock.register(get("/batch-missing").willReturn(notFound()));
+
+        //when
+        List<Result> results = Http.sendAll(List.of(
+                Http.get(runtime.getHttpBaseUrl() + "/batch-ok"),
+                Http.get(runtime.getHttpBaseUrl() + "/batch-missing"),
+                Http.get("file:///etc/passwd")));
+
+        //then
+        assertThat(results).hasSize(3);
+        assertThat(results.get(0).body()).isEqualTo("ok");
+        assertThat(results.get(1).status()).isEqualTo(404);
+        assertThat(results.get(2).status()).isEqualTo(-1);
+    }
+
+    @Test
+    void testSendAsCompleted(WireMockRuntimeInfo runtime) {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/batch-slow").willReturn(ok().withBody("slow").withFixedDelay(500)));
+        wireMock.register(get("/batch-fast").willReturn(ok().withBody("fast")));
+        var slow = Http.get(runtime.getHttpBaseUrl() + "/batch-slow");
+        var fast = Http.get(runtime.getHttpBaseUrl() + "/batch-fast");
+        var completed = new CopyOnWriteArrayList<String>();
+
+        //when
+        Batch.of(List.of(slow, fast)).send((request, result) -> completed.add(result.body()));
+
+        //then
+        assertThat(completed).containsExactly("fast", "slow");
+    }
+
+    @Test
+    void testSendWithInvalidRequests(WireMockRuntimeInfo runtime) {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/batch-ok").willReturn(ok().withBody("ok")));
+        var requests = List.of(
+                Http.get("http:foo"),
+                Http.get(runtime.getHttpBaseUrl() + "/batch-ok").withHeader("Connection", "close"),
+                Http.get(runtime.getHttpBaseUrl() + "/batch-ok"));
+
+        //when
+        List<Result> results = Batch.of(requests).send();
+
+        //then
+        assertThat(results).hasSize(3);
+        assertThat(results.get(0).status()).isEqualTo(-1);
+        assertThat(results.get(1).status()).isEqualTo(-1);
+        assertThat(results.get(2).body()).isEqualTo("ok");
+    }
+
+    @Test
+    void testSendAsCompletedWithInvalidRequest(WireMockRuntimeInfo runtime) {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/batch-ok").willReturn(ok().withBody("ok")));
+        var invalid = Http.get("http:foo");
+        var valid = Http.get(runtime.getHttpBaseUrl() + "/batch-ok");
+        var completed = new CopyOnWriteArrayList<Integer>();
+
+        //when
+        Batch.of(List.of(invalid, valid)).send((request, result) -> completed.add(result.status()));
+
+        //then
+        assertThat(completed).containsExactlyInAnyOrder(-1, 200);
+    }
+
+    @Test
+    void testEmptyBatch() {
+        assertThat(Batch.of(List.of()).send()).isEmpty();
+    }
+
+    @Test
+    void testInvalidLimits() {
+        assertThatThrownBy(() -> Batch.of(List.of()).withMaxInFlight(0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("maxInFlight must be positive");
+        assertThatThrownBy(() -> Batch.of(List.of()).withMaxInFlightPerHost(0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("maxInFlightPerHost must be positive");
+    }
+}
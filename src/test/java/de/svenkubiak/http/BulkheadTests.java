@@ -0,0 +1,84 @@
+package de.svenkubiak.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BulkheadTests {
+    @Test
+    void testRejectsWhenQueueIsFull() throws InterruptedException {
+        //given
+        Bulkhead bulkhead = Bulkhead.of(1).withMaxQueued(0);
+
+        //when
+        boolean first = bulkhead.acquire();
+        boolean second = bulkhead.acquire();
+
+        //then
+        assertThat(first).isTrue();
+        assertThat(second).isFalse();
+        assertThat(bulkhead.getInFlight()).isEqualTo(1);
+        assertThat(bulkhead.getRejected()).isEqualTo(1);
+
+        //when
+        bulkhead.release();
+
+        //then
+        assertThat(bulkhead.getInFlight()).isZero();
+        assertThat(bulkhead.acquire()).isTrue();
+    }
+
+    @Test
+    void testQueueTimeout() throws InterruptedException {
+        //given
+        Bulkhead bulkhead = Bulkhead.of(1).withQueueTimeout(Duration.ofMillis(50));
+        bulkhead.acquire();
+
+        //when
+        boolean queued = bulkhead.acquire();
+
+        //then
+        assertThat(queued).isFalse();
+        assertThat(bulkhead.getQueued()).isZero();
+        assertThat(bulkhead.getRejected()).isEqualTo(1);
+    }
+
+    @Test
+    void testQueuedRequestGetsReleasedSlot() throws Exception {
+        //given
+        Bulkhead bulkhead = Bulkhead.of(1).withQueueTimeout(Duration.ofSeconds(5));
+        bulkhead.acquire();
+        var waiting = new CountDownLatch(1);
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            //when
+            Future<Boolean> queued = executor.submit(() -> {
+                waiting.countDown();
+                return bulkhead.acquire();
+            });
+            waiting.await();
+            while (bulkhead.getQueued() == 0) {
+                Thread.onSpinWait();
+            }
+            bulkhead.release();
+
+            //then
+            assertThat(queued.get()).isTrue();
+            assertThat(bulkhead.getInFlight()).isEqualTo(1);
+            assertThat(bulkhead.getRejected()).isZero();
+        }
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThatThrownBy(() -> Bulkhead.of(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Bulkhead.of(1).withMaxQueued(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Bulkhead.of(1).withQueueTimeout(Duration.ofSeconds(-1))).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,117 @@
+package de.svenkubiak.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ClientRegistryTests {
+    @Test
+    void testReusesClients() {
+        //given
+        var registry = new ClientRegistry(key -> HttpClient.newHttpClient(), Executors.newVirtualThreadPerTaskExecutor(), 4, Duration.ofMinutes(5));
+
+        //when
+        HttpClient first = registry.get(ClientRegistry.Key.of(false, false, null, null));
+        HttpClient second = registry.get(ClientRegistry.Key.of(false, false, null, null));
+        HttpClient other = registry.get(ClientRegistry.Key.of(true, false, null, null));
+
+        //then
+        assertThat(first).isSameAs(second);
+        assertThat(other).isNotSameAs(first);
+        assertThat(ClientRegistry.Key.of(false, false, null, null)).isSameAs(ClientRegistry.Key.of(false, false, null, null));
+        assertThat(registry.size()).isEqualTo(2);
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsed() throws InterruptedException {
+        //given
+        var registry = new ClientRegistry(key -> HttpClient.newHttpClient(), Executors.newVirtualThreadPerTaskExecutor(), 2, Duration.ofMinutes(5));
+
+        //when
+        HttpClient eldest = registry.get(ClientRegistry.Key.of(false, false, null, null));
+        Thread.sleep(5);
+        registry.get(ClientRegistry.Key.of(false, true, null, null));
+        Thread.sleep(5);
+        registry.get(ClientRegistry.Key.of(false, false, new InetSocketAddress("127.0.0.1", 8080), null));
+
+        //then
+        assertThat(registry.size()).isEqualTo(2);
+        assertThat(registry.get(ClientRegistry.Key.of(false, false, null, null))).isNotSameAs(eldest);
+    }
+
+    @Test
+    void testEvictsIdleClients() throws InterruptedException {
+        //given
+        var registry = new ClientRegistry(key -> HttpClient.newHttpClient(), Executors.newVirtualThreadPerTaskExecutor(), 4, Duration.ofMillis(1));
+        registry.get(ClientRegistry.Key.of(false, false, null, null));
+        registry.get(ClientRegistry.Key.of(false, true, null, null));
+
+        //when
+        Thread.sleep(10);
+        registry.get(ClientRegistry.Key.of(true, true, null, null));
+
+        //then
+        assertThat(registry.size()).isEqualTo(1);
+    }
+
+    @Test
+    void testShutdown() {
+        //given
+        var registry = new ClientRegistry(key -> HttpClient.newHttpClient(), Executors.newVirtualThreadPerTaskExecutor(), 4, Duration.ofMinutes(5));
+        HttpClient client = registry.get(ClientRegistry.Key.of(false, false, null, null));
+
+        //when
+        registry.shutdown();
+
+        //then
+        assertThat(registry.size()).isZero();
+        assertThat(registry.get(ClientRegistry.Key.of(false, false, null, null))).isNotSameAs(client);
+    }
+
+    @Test
+    void testInvalidConfiguration() {
+        assertThatThrownBy(() -> Http.configureClients(0, Duration.ofMinutes(5)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("maxClients must be positive");
+        assertThatThrownBy(() -> Http.configureClients(1, Duration.ZERO))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("idleTimeout must be positive");
+    }
+
+    @Test
+    void testInlineProfilesShareClients() {
+        //given
+        var registry = new ClientRegistry(key -> HttpClient.newHttpClient(), Executors.newVirtualThreadPerTaskExecutor(), 4, Duration.ofMinutes(5));
+
+        //when
+        HttpClient first = registry.get(ClientRegistry.Key.of(false, false, null, Profile.of("inline").withConnectTimeout(Duration.ofSeconds(2))));
+        HttpClient second = registry.get(ClientRegistry.Key.of(false, false, null, Profile.of("inline").withConnectTimeout(Duration.ofSeconds(2))));
+        HttpClient other = registry.get(ClientRegistry.Key.of(false, false, null, Profile.of("inline").withConnectTimeout(Duration.ofSeconds(3))));
+
+        //then
+        assertThat(second).isSameAs(first);
+        assertThat(other).isNotSameAs(first);
+        assertThat(registry.size()).isEqualTo(2);
+    }
+
+    @Test
+    void testProfilesGetOwnClients() {
+        //given
+        var registry = new ClientRegistry(key -> HttpClient.newHttpClient(), Executors.newVirtualThreadPerTaskExecutor(), 4, Duration.ofMinutes(5));
+        var profile = Profile.of("test");
+
+        //when
+        HttpClient withProfile = registry.get(ClientRegistry.Key.of(false, false, null, profile));
+        HttpClient withoutProfile = registry.get(ClientRegistry.Key.of(false, false, null, null));
+
+        //then
+        assertThat(withProfile).isNotSameAs(withoutProfile);
+        assertThat(registry.get(ClientRegistry.Key.of(false, false, null, profile))).isSameAs(withProfile);
+    }
+}
@@ -97,4 +97,178 @@ public class FailsafeTests {
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessageContaining("threshold must be positive");
     }
+
+    @Test
+    void testHalfOpenAdmitsLimitedProbes() throws InterruptedException {
+        //given
+        Failsafe failsafe = Failsafe.of(1, Duration.of(50, ChronoUnit.MILLIS)).withProbes(2);
+        failsafe.error();
+
+        //then
+        assertThat(failsafe.isActive()).isTrue();
+
+        //when
+        Thread.sleep(60);
+
+        //then
+        assertThat(failsafe.isActive()).isFalse();
+        assertThat(failsafe.admit()).isNotEqualTo(Failsafe.BLOCKED);
+        assertThat(failsafe.admit()).isNotEqualTo(Failsafe.BLOCKED);
+        assertThat(failsafe.admit()).isEqualTo(Failsafe.BLOCKED);
+        assertThat(failsafe.isActive()).isTrue();
+
+        //when
+        failsafe.success();
+
+        //then
+        assertThat(failsafe.isActive()).isFalse();
+        assertThat(failsafe.getUntil()).isNull();
+    }
+
+    @Test
+    void testReleasedProbeIsAdmittedAgain() throws InterruptedException {
+        //given
+        Failsafe failsafe = Failsafe.of(1, Duration.of(50, ChronoUnit.MILLIS));
+        failsafe.error();
+        Thread.sleep(60);
+
+        //when
+        int probe = failsafe.admit();
+        int blocked = failsafe.admit();
+        failsafe.release(probe);
+
+        //then
+        assertThat(Failsafe.isProbe(probe)).isTrue();
+        assertThat(blocked).isEqualTo(Failsafe.BLOCKED);
+        assertThat(Failsafe.isProbe(failsafe.admit())).isTrue();
+    }
+
+    @Test
+    void testIsActiveDoesNotAdmitProbes() throws InterruptedException {
+        //given
+        Failsafe failsafe = Failsafe.of(1, Duration.of(50, ChronoUnit.MILLIS));
+        failsafe.error();
+        Thread.sleep(60);
+
+        //when
+        boolean first = failsafe.isActive();
+        boolean second = failsafe.isActive();
+        boolean third = failsafe.isActive();
+
+        //then
+        assertThat(first).isFalse();
+        assertThat(second).isFalse();
+        assertThat(third).isFalse();
+        assertThat(Failsafe.isProbe(failsafe.admit())).isTrue();
+    }
+
+    @Test
+    void testLateOutcomesAreIgnored() throws InterruptedException {
+        //given
+        Failsafe failsafe = Failsafe.of(1, Duration.of(50, ChronoUnit.MILLIS));
+        int late = failsafe.admit();
+        failsafe.error(failsafe.admit());
+
+        //when
+        failsafe.success(late);
+
+        //then
+        assertThat(failsafe.isActive()).isTrue();
+
+        //when
+        failsafe.error(late);
+
+        //then
+        assertThat(failsafe.getCount()).isEqualTo(2);
+
+        //when
+        Thread.sleep(60);
+        int probe = failsafe.admit();
+        failsafe.success(late);
+
+        //then
+        assertThat(failsafe.admit()).isEqualTo(Failsafe.BLOCKED);
+
+        //when
+        failsafe.success(probe);
+
+        //then
+        assertThat(failsafe.isActive()).isFalse();
+        assertThat(failsafe.getUntil()).isNull();
+    }
+
+    @Test
+    void testLateProbeOutcomeAfterClosing() throws InterruptedException {
+        //given
+        Failsafe failsafe = Failsafe.of(1, Duration.of(50, ChronoUnit.MILLIS)).withProbes(2);
+        failsafe.error();
+        Thread.sleep(60);
+        int first = failsafe.admit();
+        int second = failsafe.admit();
+
+        //when
+        failsafe.success(first);
+        failsafe.error(second);
+
+        //then
+        assertThat(failsafe.isActive()).isFalse();
+        assertThat(failsafe.getCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testFailedProbeOpensAgain() throws InterruptedException {
+        //given
+        Failsafe failsafe = Failsafe.of(1, Duration.of(50, ChronoUnit.MILLIS));
+        failsafe.error();
+        Thread.sleep(60);
+
+        //when
+        boolean probe = failsafe.isActive();
+        failsafe.error();
+
+        //then
+        assertThat(probe).isFalse();
+        assertThat(failsafe.isActive()).isTrue();
+        assertThat(failsafe.getUntil()).isNotNull();
+    }
+
+    @Test
+    void testFailureRate() {
+        //given
+        Failsafe failsafe = Failsafe.of(100, Duration.of(5, ChronoUnit.SECONDS)).withFailureRate(0.5, 4);
+
+        //when
+        failsafe.error();
+        failsafe.success();
+        failsafe.error();
+
+        //then
+        assertThat(failsafe.isActive()).isFalse();
+
+        //when
+        failsafe.success();
+
+        //then
+        assertThat(failsafe.isActive()).isFalse();
+
+        //when
+        failsafe.error();
+
+        //then
+        assertThat(failsafe.isActive()).isTrue();
+        assertThat(failsafe.getCount()).isEqualTo(2);
+    }
+
+    @Test
+    void testInvalidConfiguration() {
+        assertThatThrownBy(() -> Failsafe.of(1, Duration.of(5, ChronoUnit.SECONDS)).withProbes(0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("maxProbes must be positive");
+        assertThatThrownBy(() -> Failsafe.of(1, Duration.of(5, ChronoUnit.SECONDS)).withFailureRate(0, 10))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("failureRate must be greater than 0 and at most 1");
+        assertThatThrownBy(() -> Failsafe.of(1, Duration.of(5, ChronoUnit.SECONDS)).withFailureRate(0.5, 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("windowSize must be positive");
+    }
 }
@@ -0,0 +1,53 @@
+package de.svenkubiak.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HedgeTests {
+    @Test
+    void testFixedDelay() {
+        //given
+        Hedge hedge = Hedge.after(Duration.ofMillis(50));
+
+        //when
+        for (int i = 0; i < 100; i++) {
+            hedge.record(Duration.ofSeconds(1).toNanos());
+        }
+
+        //then
+        assertThat(hedge.delay()).isEqualTo(Duration.ofMillis(50));
+    }
+
+    @Test
+    void testPercentileDelay() {
+        //given
+        Hedge hedge = Hedge.atPercentile(0.9, Duration.ofMillis(500));
+
+        //when
+        for (int i = 1; i <= 31; i++) {
+            hedge.record(Duration.ofMillis(i).toNanos());
+        }
+
+        //then
+        assertThat(hedge.delay()).isEqualTo(Duration.ofMillis(500));
+
+        //when
+        for (int i = 32; i <= 100; i++) {
+            hedge.record(Duration.ofMillis(i).toNanos());
+        }
+
+        //then
+        assertThat(hedge.delay()).isEqualTo(Duration.ofMillis(87));
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThatThrownBy(() -> Hedge.atPercentile(1, Duration.ofMillis(10))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Hedge.after(Duration.ofMillis(-1))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Hedge.after(null)).isInstanceOf(NullPointerException.class);
+    }
+}
@@ -7,17 +7,29 @@ import com.github.tomakehurst.wiremock.junit5.WireMockTest;
 import de.svenkubiak.utils.Utils;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.http.HttpClient;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPOutputStream;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static com.github.tomakehurst.wiremock.stubbing.Scenario.STARTED;
 import static java.time.temporal.ChronoUnit.SECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -537,4 +549,918 @@ class HttpTests {
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessage("maxBytes must be positive");
     }
+
+    @Test
+    void testSendAsync(WireMockRuntimeInfo runtime) {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/test-async").willReturn(ok().withBody(RESPONSE).withHeader("x-header", "async")));
+
+        //when
+        Result result = Http.get(runtime.getHttpBaseUrl() + "/test-async").sendAsync().join();
+
+        //then
+        assertThat(result).isNotNull();
+        assertThat(result.status()).isEqualTo(200);
+        assertThat(result.body()).isEqualTo(RESPONSE);
+        assertThat(result.header("x-header")).isEqualTo("async");
+    }
+
+    @Test
+    void testSendAsyncTimeout(WireMockRuntimeInfo runtime) {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/test-async-timeout").willReturn(ok().withBody(RESPONSE).withFixedDelay(3000)));
+
+        //when
+        Result result = Http.get(runtime.getHttpBaseUrl() + "/test-async-timeout")
+                .withTimeout(Duration.of(1, SECONDS))
+                .sendAsync()
+                .join();
+
+        //then
+        assertThat(result).isNotNull();
+        assertThat(result.status()).isEqualTo(-1);
+        assertThat(result.error()).isEqualTo(REQUEST_TIMED_OUT);
+    }
+
+    @Test
+    void testSendAsyncMaxResponseSizeExceeded(WireMockRuntimeInfo runtime) {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/test-async-too-large").willReturn(ok().withBody("hello, world!")));
+
+        //when
+        Result result = Http.get(runtime.getHttpBaseUrl() + "/test-async-too-large")
+                .withMaxResponseSize(5)
+                .sendAsync()
+                .join();
+
+        //then
+        assertThat(result).isNotNull();
+        assertThat(result.status()).isEqualTo(-1);
+        assertThat(result.body()).contains("exceeds maximum size");
+    }
+
+    @Test
+    void testSendAsyncWithFailsafe(WireMockRuntimeInfo runtime) {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/test-async-failsafe").willReturn(badRequest()));
+        var request = Http.get(runtime.getHttpBaseUrl() + "/test-async-failsafe")
+                .withFailsafe(1, Duration.of(10, SECONDS));
+
+        //when
+        Result first = request.sendAsync().join();
+        Result second = request.sendAsync().join();
+
+        //then
+        assertThat(first.status()).isEqualTo(400);
+        assertThat(second.status()).isEqualTo(-1);
+        assertThat(second.error()).isEqualTo(Utils.FAILSAFE_ACTIVE_MESSAGE);
+    }
+
+    @Test
+    void testSendAsyncInvalidUrlScheme() {
+        Result result = Http.get("file:///etc/passwd").sendAsync().join();
+
+        assertThat(result.status()).isEqualTo(-1);
+        assertThat(result.error()).contains("Only http and https URLs are allowed");
+    }
+
+    @Test
+    void testStreamResponse(WireMockRuntimeInfo runtime) throws IOException {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/test-stream").willReturn(ok().withBody(RESPONSE).withHeader("x-header", "stream")));
+
+        //when
+        Result result = Http.get(runtime.getHttpBaseUrl() + "/test-stream").streamResponse().send();
+
+        //then
+        assertThat(result.status()).isEqualTo(200);
+        assertThat(result.header("x-header")).isEqualTo("stream");
+        try (InputStream inputStream = result.stream()) {
+            assertThat(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(RESPONSE);
+        }
+    }
+
+    @Test
+    void testStreamResponseMaxResponseSizeExceeded(WireMockRuntimeInfo runtime) throws IOException {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/test-stream-too-large").willReturn(ok().withBody(RESPONSE)));
+
+        //when
+        Result result = Http.get(runtime.getHttpBaseUrl() + "/test-stream-too-large")
+                .streamResponse()
+                .withMaxResponseSize(5)
+                .send();
+
+        //then
+        assertThat(result.status()).isEqualTo(200);
+        try (InputStream inputStream = result.stream()) {
+            assertThatThrownBy(inputStream::readAllBytes)
+                    .isInstanceOf(IOException.class)
+                    .hasMessageContaining("exceeds maximum size");
+        }
+    }
+
+    @Test
+    void testBinaryResponseToFile(WireMockRuntimeInfo runtime, @TempDir Path directory) throws IOException {
+        //given
+        byte[] binaryData = new byte[]{0x48, 0x65, 0x6C, 0x6C, 0x6F};
+        Path file = directory.resolve("download.bin");
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/test-download").willReturn(ok().withBody(binaryData)));
+
+        //when
+        Result result = Http.get(runtime.getHttpBaseUrl() + "/test-download").binaryResponse(file).send();
+
+        //then
+        assertThat(result.status()).isEqualTo(200);
+        assertThat(result.file()).isEqualTo(file);
+        assertThat(result.binaryBody()).isNull();
+        assertThat(Files.readAllBytes(file)).isEqualTo(binaryData);
+    }
+
+    @Test
+    void testBinaryResponseToFileMaxResponseSizeExceeded(WireMockRuntimeInfo runtime, @TempDir Path directory) throws IOException {
+        //given
+        byte[] binaryData = new byte[]{0x48, 0x65, 0x6C, 0x6C, 0x6F};
+        Path file = directory.resolve("download.bin");
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/test-download-too-large").willReturn(ok().withBody(binaryData)));
+
+        //when
+        Result result = Http.get(runtime.getHttpBaseUrl() + "/test-download-too-large")
+                .binaryResponse(file)
+                .withMaxResponseSize(3)
+                .send();
+
+        //then
+        assertThat(result.status()).isEqualTo(-1);
+        assertThat(result.body()).contains("exceeds maximum size");
+        assertThat(result.file()).isNull();
+        try (var files = Files.list(directory)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void testBinaryResponseToFileNotWrittenOnError(WireMockRuntimeInfo runtime, @TempDir Path directory) {
+        //given
+        Path file = directory.resolve("download.bin");
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/test-download-missing").willReturn(notFound().withBody("not found")));
+
+        //when
+        Result result = Http.get(runtime.getHttpBaseUrl() + "/test-download-missing").binaryResponse(file).send();
+
+        //then
+        assertThat(result.status()).isEqualTo(404);
+        assertThat(result.body()).isEqualTo("not found");
+        assertThat(result.file()).isNull();
+        assertThat(file).doesNotExist();
+    }
+
+    @Test
+    void testPostWithBinaryBodies(WireMockRuntimeInfo runtime, @TempDir Path directory) throws IOException {
+        //given
+        byte[] binaryData = new byte[]{0x00, 0x48, (byte) 0xFF, 0x6C, 0x6F};
+        ByteBuffer directBuffer = ByteBuffer.allocateDirect(binaryData.length).put(binaryData).flip();
+        Path file = Files.write(directory.resolve("upload.bin"), binaryData);
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(post("/test-binary-body")
+                .withRequestBody(binaryEqualTo(binaryData))
+                .willReturn(ok()));
+        String url = runtime.getHttpBaseUrl() + "/test-binary-body";
+
+        //when
+        Result bytes = Http.post(url).withBody(binaryData).send();
+        Result heapBuffer = Http.post(url).withBody(ByteBuffer.wrap(binaryData)).send();
+        Result direct = Http.post(url).withBody(directBuffer).send();
+        Result path = Http.post(url).withBody(file).send();
+        Result stream = Http.post(url).withBody(() -> new ByteArrayInputStream(binaryData)).send();
+
+        //then
+        assertThat(bytes.status()).isEqualTo(200);
+        assertThat(heapBuffer.status()).isEqualTo(200);
+        assertThat(direct.status()).isEqualTo(200);
+        assertThat(path.status()).isEqualTo(200);
+        assertThat(stream.status()).isEqualTo(200);
+        assertThat(directBuffer.remaining()).isEqualTo(binaryData.length);
+    }
+
+    @Test
+    void testPostWithMissingFileBody(WireMockRuntimeInfo runtime, @TempDir Path directory) {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(post("/test-missing-file").willReturn(ok()));
+
+        //when
+        Result result = Http.post(runtime.getHttpBaseUrl() + "/test-missing-file")
+                .withBody(directory.resolve("missing.bin"))
+                .send();
+
+        //then
+        assertThat(result.status()).isEqualTo(-1);
+        assertThat(result.error()).isNotEmpty();
+    }
+
+    @Test
+    void testBodyWithDeclaredCharset(WireMockRuntimeInfo runtime) {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/test-charset").willReturn(ok()
+                .withHeader("Content-Type", "text/plain; charset=ISO-8859-1")
+                .withBody("Grüße".getBytes(StandardCharsets.ISO_8859_1))));
+
+        //when
+        Result result = Http.get(runtime.getHttpBaseUrl() + "/test-charset").send();
+
+        //then
+        assertThat(result.status()).isEqualTo(200);
+        assertThat(result.body()).isEqualTo("Grüße");
+    }
+
+    @Test
+    void testMultiValueResponseHeaders(WireMockRuntimeInfo runtime) {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/test-multi-header").willReturn(ok()
+                .withHeader("Set-Cookie", "a=1", "b=2")
+                .withHeader("X-Header", "value")));
+
+        //when
+        Result result = Http.get(runtime.getHttpBaseUrl() + "/test-multi-header").send();
+
+        //then
+        assertThat(result.headers("set-cookie")).containsExactly("a=1", "b=2");
+        assertThat(result.header("x-header")).isEqualTo("value");
+        assertThat(result.header("X-HEADER")).isEqualTo("value");
+    }
+
+    @Test
+    void testAcceptCompression(WireMockRuntimeInfo runtime) throws IOException {
+        //given
+        String body = RESPONSE.repeat(100);
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/test-gzip").willReturn(ok()
+                .withHeader("Content-Encoding", "gzip")
+                .withBody(gzip(body.getBytes(StandardCharsets.UTF_8)))));
+
+        //when
+        Result result = Http.get(runtime.getHttpBaseUrl() + "/test-gzip").acceptCompression().send();
+
+        //then
+        verify(getRequestedFor(urlEqualTo("/test-gzip")).withHeader("Accept-Encoding", equalTo("gzip, deflate")));
+        assertThat(result.status()).isEqualTo(200);
+        assertThat(result.body()).isEqualTo(body);
+        assertThat(result.decodedSize()).isEqualTo(body.length());
+        assertThat(result.wireSize()).isLessThan(result.decodedSize());
+    }
+
+    @Test
+    void testAcceptCompressionLimitsDecompressedSize(WireMockRuntimeInfo runtime) throws IOException {
+        //given
+        byte[] bomb = new byte[1024 * 1024];
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/test-gzip-bomb").willReturn(ok()
+                .withHeader("Content-Encoding", "gzip")
+                .withBody(gzip(bomb))));
+
+        //when
+        Result result = Http.get(runtime.getHttpBaseUrl() + "/test-gzip-bomb")
+                .acceptCompression()
+                .withMaxResponseSize(64 * 1024)
+                .send();
+
+        //then
+        assertThat(result.status()).isEqualTo(-1);
+        assertThat(result.body()).contains("exceeds maximum size");
+    }
+
+    @Test
+    void testCompressBody(WireMockRuntimeInfo runtime) throws IOException {
+        //given
+        String requestBody = "{\"name\":\"test\"}".repeat(200);
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(post("/test-compress-body")
+                .withHeader("Content-Encoding", equalTo("gzip"))
+                .withRequestBody(equalTo(requestBody))
+                .willReturn(ok()));
+        wireMock.register(post("/test-compress-small").withHeader("Content-Encoding", absent()).willReturn(ok()));
+
+        //when
+        Result compressed = Http.post(runtime.getHttpBaseUrl() + "/test-compress-body")
+                .withVersion(HttpClient.Version.HTTP_1_1)
+                .withBody(requestBody)
+                .compressBody()
+                .send();
+        Result small = Http.post(runtime.getHttpBaseUrl() + "/test-compress-small")
+                .withBody("{}")
+                .compressBody()
+                .send();
+
+        //then
+        assertThat(compressed.status()).isEqualTo(200);
+        assertThat(small.status()).isEqualTo(200);
+    }
+
+    @Test
+    void testCompressBodyRejectsNegativeThreshold() {
+        assertThatThrownBy(() -> Http.post("https://example.com").compressBody(-1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("minBytes must not be negative");
+    }
+
+    @Test
+    void testWithProfile(WireMockRuntimeInfo runtime) {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/test-profile").willReturn(ok().withBody(RESPONSE)));
+        Http.register(Profile.of("test-profile").withConnectTimeout(Duration.of(2, SECONDS)).withPriority(16));
+
+        //when
+        Result result = Http.get(runtime.getHttpBaseUrl() + "/test-profile").withProfile("test-profile").send();
+
+        //then
+        assertThat(result.status()).isEqualTo(200);
+        assertThat(result.body()).isEqualTo(RESPONSE);
+    }
+
+    @Test
+    void testFailsafeProbeRejectedByBulkheadIsReleased(WireMockRuntimeInfo runtime) throws InterruptedException {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/test-probe").inScenario("probe").whenScenarioStateIs(STARTED)
+                .willReturn(badRequest()).willSetStateTo("recovered"));
+        wireMock.register(get("/test-probe").inScenario("probe").whenScenarioStateIs("recovered")
+                .willReturn(ok().withBody(RESPONSE)));
+        Bulkhead bulkhead = Bulkhead.of(1).withMaxQueued(0);
+        var request = Http.get(runtime.getHttpBaseUrl() + "/test-probe")
+                .withFailsafe(1, Duration.ofMillis(50))
+                .withBulkhead(bulkhead);
+        request.send();
+        Thread.sleep(60);
+
+        //when
+        bulkhead.acquire();
+        Result rejected = request.send();
+        bulkhead.release();
+        Result probe = request.send();
+
+        //then
+        assertThat(rejected.error()).isEqualTo(Utils.BULKHEAD_FULL_MESSAGE);
+        assertThat(probe.status()).isEqualTo(200);
+        wireMock.verifyThat(2, getRequestedFor(urlEqualTo("/test-probe")));
+    }
+
+    @Test
+    void testSendAsyncAdmitsSingleProbe(WireMockRuntimeInfo runtime) throws InterruptedException {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/test-async-probe").inScenario("async-probe").whenScenarioStateIs(STARTED)
+                .willReturn(badRequest()).willSetStateTo("recovered"));
+        wireMock.register(get("/test-async-probe").inScenario("async-probe").whenScenarioStateIs("recovered")
+                .willReturn(ok().withBody(RESPONSE).withFixedDelay(300)));
+        var request = Http.get(runtime.getHttpBaseUrl() + "/test-async-probe")
+                .withFailsafe(1, Duration.ofMillis(50));
+        request.sendAsync().join();
+        Thread.sleep(60);
+
+        //when
+        var probe = request.sendAsync();
+        var blocked = request.sendAsync();
+
+        //then
+        assertThat(blocked.join().error()).isEqualTo(Utils.FAILSAFE_ACTIVE_MESSAGE);
+        assertThat(probe.join().status()).isEqualTo(200);
+        assertThat(request.sendAsync().join().status()).isEqualTo(200);
+        wireMock.verifyThat(3, getRequestedFor(urlEqualTo("/test-async-probe")));
+    }
+
+    @Test
+    void testWithSharedFailsafeAcrossInstances(WireMockRuntimeInfo runtime) {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/test-shared-failsafe").willReturn(badRequest()));
+        String url = runtime.getHttpBaseUrl() + "/test-shared-failsafe";
+        String key = UUID.randomUUID().toString();
+
+        //when
+        Result first = Http.get(url).withSharedFailsafe(key, 2, Duration.of(10, SECONDS)).send();
+        Result second = Http.get(url).withSharedFailsafe(key, 2, Duration.of(10, SECONDS)).send();
+        Result third = Http.get(url).withSharedFailsafe(key, 2, Duration.of(10, SECONDS)).send();
+
+        //then
+        assertThat(first.status()).isEqualTo(400);
+        assertThat(second.status()).isEqualTo(400);
+        assertThat(third.status()).isEqualTo(-1);
+        assertThat(third.error()).isEqualTo(Utils.FAILSAFE_ACTIVE_MESSAGE);
+        assertThat(Http.sharedFailsafe(key).isActive()).isTrue();
+
+        //when
+        Http.removeSharedFailsafe(key);
+
+        //then
+        assertThat(Http.sharedFailsafe(key)).isNull();
+    }
+
+    @Test
+    void testWithSharedFailsafeByOrigin(WireMockRuntimeInfo runtime) {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/test-shared-origin").willReturn(badRequest()));
+        String origin = "http://localhost:" + runtime.getHttpPort();
+
+        try {
+            //when
+            Http.get(origin + "/test-shared-origin").withSharedFailsafe(1, Duration.of(10, SECONDS)).send();
+            Http.get(origin + "/test-shared-origin").withSharedFailsafe(1, Duration.of(10, SECONDS)).send();
+            Result blocked = Http.get(origin + "/other").withSharedFailsafe(1, Duration.of(10, SECONDS)).send();
+
+            //then
+            assertThat(blocked.error()).isEqualTo(Utils.FAILSAFE_ACTIVE_MESSAGE);
+            assertThat(Http.sharedFailsafe(origin)).isNotNull();
+        } finally {
+            Http.removeSharedFailsafe(origin);
+        }
+    }
+
+    @Test
+    void testWithSharedFailsafeFollowsChangedUrl(WireMockRuntimeInfo runtime) {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/test-shared-url").willReturn(badRequest()));
+        String origin = "http://localhost:" + runtime.getHttpPort();
+        String other = "http://127.0.0.1:" + runtime.getHttpPort();
+        var request = Http.get(origin + "/test-shared-url").withSharedFailsafe(1, Duration.of(10, SECONDS));
+
+        try {
+            //when
+            request.send();
+            request.send();
+            Result sent = request.withUrl(other + "/test-shared-url").send();
+
+            //then
+            assertThat(Http.sharedFailsafe(origin).isActive()).isTrue();
+            assertThat(sent.status()).isEqualTo(400);
+            assertThat(Http.sharedFailsafe(other)).isNotNull();
+        } finally {
+            Http.removeSharedFailsafe(origin);
+            Http.removeSharedFailsafe(other);
+        }
+    }
+
+    @Test
+    void testWithSharedFailsafeRejectsInvalidThreshold() {
+        assertThatThrownBy(() -> Http.get("https://example.com").withSharedFailsafe(0, Duration.of(10, SECONDS)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("threshold must be positive");
+        assertThatThrownBy(() -> Http.get("https://example.com").withSharedFailsafe("key", 1, null))
+                .isInstanceOf(NullPointerException.class)
+                .hasMessage("delay can not be null");
+    }
+
+    @Test
+    void testWithRetry(WireMockRuntimeInfo runtime) {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/retry").inScenario("retry").whenScenarioStateIs(STARTED)
+                .willReturn(serviceUnavailable()).willSetStateTo("recovered"));
+        wireMock.register(get("/retry").inScenario("retry").whenScenarioStateIs("recovered")
+                .willReturn(ok().withBody(RESPONSE)));
+
+        //when
+        Result result = Http.get(runtime.getHttpBaseUrl() + "/retry")
+                .withRetry(Retry.of(3).withBackoff(Duration.ofMillis(10), Duration.ofMillis(50)))
+                .send();
+
+        //then
+        assertThat(result.status()).isEqualTo(200);
+        assertThat(result.body()).isEqualTo(RESPONSE);
+        wireMock.verifyThat(2, getRequestedFor(urlEqualTo("/retry")));
+    }
+
+    @Test
+    void testWithRetryLooksUpClientAgain(WireMockRuntimeInfo runtime) throws Exception {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/retry-client").inScenario("retry-client").whenScenarioStateIs(STARTED)
+                .willReturn(serviceUnavailable().withHeader("Retry-After", "1")).willSetStateTo("recovered"));
+        wireMock.register(get("/retry-client").inScenario("retry-client").whenScenarioStateIs("recovered")
+                .willReturn(ok().withBody(RESPONSE)));
+
+        //when
+        var future = Http.get(runtime.getHttpBaseUrl() + "/retry-client")
+                .withRetry(Retry.of(2).withBackoff(Duration.ofMillis(10), Duration.ofSeconds(5)))
+                .sendAsync();
+        Thread.sleep(300);
+        Http.shutdown();
+        Result result = future.get();
+
+        //then
+        assertThat(result.status()).isEqualTo(200);
+        wireMock.verifyThat(2, getRequestedFor(urlEqualTo("/retry-client")));
+    }
+
+    @Test
+    void testWithRetryReturnsLastResponse(WireMockRuntimeInfo runtime) {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/unavailable").willReturn(serviceUnavailable().withBody("down")));
+
+        //when
+        Result result = Http.get(runtime.getHttpBaseUrl() + "/unavailable")
+                .withRetry(Retry.of(3).withBackoff(Duration.ofMillis(10), Duration.ofMillis(50)))
+                .sendAsync()
+                .join();
+
+        //then
+        assertThat(result.status()).isEqualTo(503);
+        assertThat(result.body()).isEqualTo("down");
+        wireMock.verifyThat(3, getRequestedFor(urlEqualTo("/unavailable")));
+    }
+
+    @Test
+    void testWithRetrySkipsPost(WireMockRuntimeInfo runtime) {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(post("/unavailable").willReturn(serviceUnavailable()));
+
+        //when
+        Result result = Http.post(runtime.getHttpBaseUrl() + "/unavailable")
+                .withRetry(Retry.of(3).withBackoff(Duration.ofMillis(10), Duration.ofMillis(50)))
+                .send();
+
+        //then
+        assertThat(result.status()).isEqualTo(503);
+        wireMock.verifyThat(1, postRequestedFor(urlEqualTo("/unavailable")));
+    }
+
+    @Test
+    void testWithHedging(WireMockRuntimeInfo runtime) {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/hedge").inScenario("hedge").whenScenarioStateIs(STARTED)
+                .willReturn(ok().withBody("slow").withFixedDelay(3000)).willSetStateTo("fast"));
+        wireMock.register(get("/hedge").inScenario("hedge").whenScenarioStateIs("fast")
+                .willReturn(ok().withBody(RESPONSE)));
+
+        //when
+        Result result = Http.get(runtime.getHttpBaseUrl() + "/hedge")
+                .withHedging(Hedge.after(Duration.ofMillis(100)))
+                .send();
+
+        //then
+        assertThat(result.status()).isEqualTo(200);
+        assertThat(result.body()).isEqualTo(RESPONSE);
+        wireMock.verifyThat(2, getRequestedFor(urlEqualTo("/hedge")));
+    }
+
+    @Test
+    void testWithHedgingWithoutBudget(WireMockRuntimeInfo runtime) {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/slow").willReturn(ok().withBody(RESPONSE).withFixedDelay(300)));
+        Hedge hedge = Hedge.after(Duration.ofMillis(50)).withBudget(0, 1);
+
+        //when
+        Http.get(runtime.getHttpBaseUrl() + "/slow").withHedging(hedge).send();
+        Result result = Http.get(runtime.getHttpBaseUrl() + "/slow").withHedging(hedge).send();
+
+        //then
+        assertThat(result.body()).isEqualTo(RESPONSE);
+        wireMock.verifyThat(3, getRequestedFor(urlEqualTo("/slow")));
+    }
+
+    @Test
+    void testWithRateLimiter(WireMockRuntimeInfo runtime) {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/limited").willReturn(ok().withBody(RESPONSE)));
+        RateLimiter rateLimiter = RateLimiter.of(1).withMaxWait(Duration.ofMillis(100));
+
+        //when
+        Result first = Http.get(runtime.getHttpBaseUrl() + "/limited").withRateLimiter(rateLimiter).send();
+        Result second = Http.get(runtime.getHttpBaseUrl() + "/limited").withRateLimiter(rateLimiter).sendAsync().join();
+
+        //then
+        assertThat(first.status()).isEqualTo(200);
+        assertThat(second.status()).isEqualTo(-1);
+        assertThat(second.error()).isEqualTo(Utils.RATE_LIMITED_MESSAGE);
+        wireMock.verifyThat(1, getRequestedFor(urlEqualTo("/limited")));
+    }
+
+    @Test
+    void testWithRetryKeepsBackoffWithBurstRateLimiter(WireMockRuntimeInfo runtime) {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/retry-burst").inScenario("retry-burst").whenScenarioStateIs(STARTED)
+                .willReturn(aResponse().withStatus(502).withHeader("Retry-After", "1")).willSetStateTo("recovered"));
+        wireMock.register(get("/retry-burst").inScenario("retry-burst").whenScenarioStateIs("recovered")
+                .willReturn(ok().withBody(RESPONSE)));
+
+        //when
+        long start = System.nanoTime();
+        Result result = Http.get(runtime.getHttpBaseUrl() + "/retry-burst")
+                .withRetry(Retry.of(2).withBackoff(Duration.ofMillis(10), Duration.ofSeconds(5)))
+                .withRateLimiter(RateLimiter.of(1).withBurst(10))
+                .send();
+
+        //then
+        assertThat(result.status()).isEqualTo(200);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofSeconds(1));
+        wireMock.verifyThat(2, getRequestedFor(urlEqualTo("/retry-burst")));
+    }
+
+    @Test
+    void testWithSharedRateLimiterAdaptsToRetryAfter(WireMockRuntimeInfo runtime) {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/quota").willReturn(aResponse().withStatus(429).withHeader("Retry-After", "60")));
+        String key = UUID.randomUUID().toString();
+
+        //when
+        Result first = Http.get(runtime.getHttpBaseUrl() + "/quota")
+                .withSharedRateLimiter(key, RateLimiter.of(100).withMaxWait(Duration.ofSeconds(1)))
+                .send();
+        Result second = Http.get(runtime.getHttpBaseUrl() + "/quota")
+                .withSharedRateLimiter(key, RateLimiter.of(100))
+                .send();
+
+        //then
+        assertThat(first.status()).isEqualTo(429);
+        assertThat(second.error()).isEqualTo(Utils.RATE_LIMITED_MESSAGE);
+        assertThat(Http.sharedRateLimiter(key)).isNotNull();
+        wireMock.verifyThat(1, getRequestedFor(urlEqualTo("/quota")));
+        Http.removeSharedRateLimiter(key);
+    }
+
+    @Test
+    void testWithSharedBulkhead(WireMockRuntimeInfo runtime) {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/bulkhead").willReturn(ok().withBody(RESPONSE).withFixedDelay(500)));
+        String key = UUID.randomUUID().toString();
+        Bulkhead bulkhead = Bulkhead.of(1).withMaxQueued(0);
+
+        //when
+        var first = Http.get(runtime.getHttpBaseUrl() + "/bulkhead").withSharedBulkhead(key, bulkhead).sendAsync();
+        while (bulkhead.getInFlight() == 0) {
+            Thread.onSpinWait();
+        }
+        Result second = Http.get(runtime.getHttpBaseUrl() + "/bulkhead").withSharedBulkhead(key, Bulkhead.of(10)).send();
+
+        //then
+        assertThat(first.join().status()).isEqualTo(200);
+        assertThat(second.status()).isEqualTo(-1);
+        assertThat(second.error()).isEqualTo(Utils.BULKHEAD_FULL_MESSAGE);
+        assertThat(Http.sharedBulkhead(key).getRejected()).isEqualTo(1);
+        assertThat(Http.sharedBulkhead(key).getInFlight()).isZero();
+        Http.removeSharedBulkhead(key);
+    }
+
+    @Test
+    void testWithCache(WireMockRuntimeInfo runtime) {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/cached").willReturn(ok().withBody(RESPONSE).withHeader("Cache-Control", "max-age=60")));
+        ResponseCache cache = ResponseCache.of(1024 * 1024);
+
+        //when
+        Result first = Http.get(runtime.getHttpBaseUrl() + "/cached").withCache(cache).send();
+        Result second = Http.get(runtime.getHttpBaseUrl() + "/cached").withCache(cache).send();
+
+        //then
+        assertThat(first.body()).isEqualTo(RESPONSE);
+        assertThat(second.status()).isEqualTo(200);
+        assertThat(second.body()).isEqualTo(RESPONSE);
+        assertThat(second.wireSize()).isZero();
+        wireMock.verifyThat(1, getRequestedFor(urlEqualTo("/cached")));
+    }
+
+    @Test
+    void testWithCacheRevalidates(WireMockRuntimeInfo runtime) {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/etag").willReturn(ok().withBody(RESPONSE).withHeader("ETag", "\"v1\"")));
+        wireMock.register(get("/etag").withHeader("If-None-Match", equalTo("\"v1\"")).willReturn(aResponse().withStatus(304)));
+        ResponseCache cache = ResponseCache.of(1024 * 1024);
+
+        //when
+        Http.get(runtime.getHttpBaseUrl() + "/etag").withCache(cache).send();
+        Result result = Http.get(runtime.getHttpBaseUrl() + "/etag").withCache(cache).send();
+
+        //then
+        assertThat(result.status()).isEqualTo(200);
+        assertThat(result.body()).isEqualTo(RESPONSE);
+        wireMock.verifyThat(2, getRequestedFor(urlEqualTo("/etag")));
+        wireMock.verifyThat(1, getRequestedFor(urlEqualTo("/etag")).withHeader("If-None-Match", equalTo("\"v1\"")));
+    }
+
+    @Test
+    void testWithCacheInvalidatedByPost(WireMockRuntimeInfo runtime) {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/resource").willReturn(ok().withBody(RESPONSE).withHeader("Cache-Control", "max-age=60")));
+        wireMock.register(post("/resource").willReturn(ok()));
+        ResponseCache cache = ResponseCache.of(1024 * 1024);
+
+        //when
+        Http.get(runtime.getHttpBaseUrl() + "/resource").withCache(cache).send();
+        Http.post(runtime.getHttpBaseUrl() + "/resource").withCache(cache).send();
+        Http.get(runtime.getHttpBaseUrl() + "/resource").withCache(cache).send();
+
+        //then
+        wireMock.verifyThat(2, getRequestedFor(urlEqualTo("/resource")));
+    }
+
+    @Test
+    void testWithCoalescing(WireMockRuntimeInfo runtime) throws InterruptedException {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/coalesced").willReturn(ok().withBody(RESPONSE).withFixedDelay(1000)));
+        var results = new CopyOnWriteArrayList<Result>();
+        var start = new CountDownLatch(1);
+
+        //when
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 20; i++) {
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    results.add(Http.get(runtime.getHttpBaseUrl() + "/coalesced").withCoalescing().send());
+                });
+            }
+            start.countDown();
+        }
+
+        //then
+        assertThat(results).hasSize(20);
+        assertThat(results).allSatisfy(result -> assertThat(result.body()).isEqualTo(RESPONSE));
+        assertThat(results.stream().distinct().count()).isEqualTo(20);
+        wireMock.verifyThat(1, getRequestedFor(urlEqualTo("/coalesced")));
+    }
+
+    @Test
+    void testWithCoalescingCopiesResult(WireMockRuntimeInfo runtime) {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/copied").willReturn(ok().withBody(RESPONSE).withHeader("X-Test", "value").withFixedDelay(500)));
+
+        //when
+        var first = Http.get(runtime.getHttpBaseUrl() + "/copied").withCoalescing().sendAsync();
+        var second = Http.get(runtime.getHttpBaseUrl() + "/copied").withCoalescing().sendAsync();
+        Result changed = first.join();
+        Result result = second.join();
+        changed.withStatus(500).withHeader("X-Test", "changed");
+
+        //then
+        assertThat(result).isNotSameAs(changed);
+        assertThat(result.status()).isEqualTo(200);
+        assertThat(result.header("X-Test")).isEqualTo("value");
+        assertThat(result.body()).isEqualTo(RESPONSE);
+        wireMock.verifyThat(1, getRequestedFor(urlEqualTo("/copied")));
+    }
+
+    @Test
+    void testWithCoalescingDistinguishesTimeoutAndVersion(WireMockRuntimeInfo runtime) {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/settings").willReturn(ok().withBody(RESPONSE).withFixedDelay(500)));
+
+        //when
+        var first = Http.get(runtime.getHttpBaseUrl() + "/settings").withCoalescing().sendAsync();
+        var second = Http.get(runtime.getHttpBaseUrl() + "/settings").withCoalescing().withTimeout(Duration.ofSeconds(5)).sendAsync();
+        var third = Http.get(runtime.getHttpBaseUrl() + "/settings").withCoalescing().withVersion(HttpClient.Version.HTTP_1_1).sendAsync();
+
+        //then
+        assertThat(first.join().status()).isEqualTo(200);
+        assertThat(second.join().status()).isEqualTo(200);
+        assertThat(third.join().status()).isEqualTo(200);
+        wireMock.verifyThat(3, getRequestedFor(urlEqualTo("/settings")));
+    }
+
+    @Test
+    void testWithCoalescingDistinguishesHeaders(WireMockRuntimeInfo runtime) {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/variant").willReturn(ok().withBody(RESPONSE).withFixedDelay(500)));
+
+        //when
+        var first = Http.get(runtime.getHttpBaseUrl() + "/variant").withCoalescing().withHeader("Accept", "text/plain").sendAsync();
+        var second = Http.get(runtime.getHttpBaseUrl() + "/variant").withCoalescing().withHeader("Accept", "application/json").sendAsync();
+
+        //then
+        assertThat(first.join().status()).isEqualTo(200);
+        assertThat(second.join().status()).isEqualTo(200);
+        wireMock.verifyThat(2, getRequestedFor(urlEqualTo("/variant")));
+    }
+
+    @Test
+    void testPrewarm(WireMockRuntimeInfo runtime) {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(head(urlEqualTo("/warm")).willReturn(ok()));
+
+        //when
+        List<Warmup> warmups = Http.prewarm(runtime.getHttpBaseUrl() + "/warm", "ftp://localhost");
+
+        //then
+        assertThat(warmups).hasSize(2);
+        assertThat(warmups.get(0).isSuccess()).isTrue();
+        assertThat(warmups.get(0).status()).isEqualTo(200);
+        assertThat(warmups.get(0).duration()).isPositive();
+        assertThat(warmups.get(0).error()).isNull();
+        assertThat(warmups.get(1).isSuccess()).isFalse();
+        assertThat(warmups.get(1).error()).isNotBlank();
+        wireMock.verifyThat(1, headRequestedFor(urlEqualTo("/warm")));
+    }
+
+    @Test
+    void testPrewarmWithSettings(WireMockRuntimeInfo runtime) {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(head(urlEqualTo("/warm")).willReturn(ok()));
+
+        //when
+        Warmup warmup = Http.get(runtime.getHttpsBaseUrl() + "/warm")
+                .disableAllHttpsValidations()
+                .withHeader("Authorization", "Bearer token")
+                .prewarm();
+
+        //then
+        assertThat(warmup.isSuccess()).isTrue();
+        wireMock.verifyThat(1, headRequestedFor(urlEqualTo("/warm")).withHeader("Authorization", equalTo("Bearer token")));
+    }
+
+    @Test
+    void testTimings(WireMockRuntimeInfo runtime) {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/").willReturn(ok().withBody(RESPONSE).withFixedDelay(50)));
+
+        //when
+        Result result = Http.get(runtime.getHttpBaseUrl()).send();
+
+        //then
+        Timings timings = result.timings();
+        assertThat(timings).isNotNull();
+        assertThat(timings.headersNanos()).isGreaterThanOrEqualTo(Duration.ofMillis(50).toNanos());
+        assertThat(timings.totalNanos()).isGreaterThanOrEqualTo(timings.lookupNanos() + timings.buildNanos()
+                + timings.waitNanos() + timings.headersNanos() + timings.bodyNanos());
+    }
+
+    @Test
+    void testMetrics(WireMockRuntimeInfo runtime) throws Exception {
+        //given
+        WireMock wireMock = runtime.getWireMock();
+        wireMock.register(get("/").willReturn(ok().withBody(RESPONSE)));
+        wireMock.register(get("/missing").willReturn(notFound()));
+        List<Integer> statuses = new CopyOnWriteArrayList<>();
+        Metrics metrics = Metrics.create().withListener((origin, method, status, timings) -> statuses.add(status));
+        String origin = "http://localhost:" + runtime.getHttpPort();
+
+        //when
+        for (int i = 0; i < 3; i++) {
+            Http.get(runtime.getHttpBaseUrl()).withMetrics(metrics).send();
+        }
+        Http.get(runtime.getHttpBaseUrl() + "/missing").withMetrics(metrics).sendAsync().get();
+
+        //then
+        assertThat(statuses).containsExactlyInAnyOrder(200, 200, 200, 404);
+        assertThat(metrics.snapshot(origin, "GET", 2, Metrics.Phase.TOTAL).count()).isEqualTo(3);
+        assertThat(metrics.snapshot(origin, "GET", 4, Metrics.Phase.HEADERS).count()).isEqualTo(1);
+        assertThat(metrics.snapshot(origin, "GET", 5, Metrics.Phase.TOTAL)).isNull();
+        assertThat(metrics.snapshot()).hasSize(2 * Metrics.Phase.values().length);
+    }
+
+    @Test
+    void testMetricsRecordsConnectionFailures() {
+        //given
+        Metrics metrics = Metrics.create();
+
+        //when
+        Result result = Http.get("http://localhost:1").withMetrics(metrics).send();
+
+        //then
+        assertThat(result.status()).isEqualTo(-1);
+        assertThat(result.timings().headersNanos()).isZero();
+        assertThat(metrics.snapshot("http://localhost:1", "GET", 0, Metrics.Phase.TOTAL).count()).isEqualTo(1);
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        var outputStream = new ByteArrayOutputStream();
+        try (var gzip = new GZIPOutputStream(outputStream)) {
+            gzip.write(data);
+        }
+
+        return outputStream.toByteArray();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,156 @@
+package de.svenkubiak.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MetricsTests {
+    private static final String ORIGIN = "https://example.com:443";
+
+    @Test
+    void testPercentiles() {
+        //given
+        Metrics metrics = Metrics.create();
+
+        //when
+        for (int i = 1; i <= 1000; i++) {
+            metrics.record(ORIGIN, "GET", 200, total(Duration.ofMillis(i).toNanos()));
+        }
+
+        //then
+        Metrics.Snapshot snapshot = metrics.snapshot(ORIGIN, "GET", 2, Metrics.Phase.TOTAL);
+        assertThat(snapshot.count()).isEqualTo(1000);
+        assertThat(snapshot.max()).isEqualTo(Duration.ofMillis(1000));
+        assertThat(snapshot.mean()).isEqualTo(Duration.ofNanos(Duration.ofMillis(1001).toNanos() / 2));
+        assertThat(snapshot.percentile(0.5)).isBetween(Duration.ofMillis(500), Duration.ofNanos(Duration.ofMillis(500).toNanos() * 9 / 8));
+        assertThat(snapshot.percentile(0.99)).isBetween(Duration.ofMillis(990), Duration.ofMillis(1000));
+        assertThat(snapshot.percentile(1)).isEqualTo(Duration.ofMillis(1000));
+    }
+
+    @Test
+    void testSmallValuesAreExact() {
+        //given
+        Metrics metrics = Metrics.create();
+
+        //when
+        metrics.record(ORIGIN, "GET", 200, total(3));
+        metrics.record(ORIGIN, "GET", 200, total(7));
+
+        //then
+        Metrics.Snapshot snapshot = metrics.snapshot(ORIGIN, "GET", 2, Metrics.Phase.TOTAL);
+        assertThat(snapshot.percentile(0.5)).isEqualTo(Duration.ofNanos(3));
+        assertThat(snapshot.percentile(1)).isEqualTo(Duration.ofNanos(7));
+    }
+
+    @Test
+    void testSeriesPerStatusClass() {
+        //given
+        Metrics metrics = Metrics.create();
+
+        //when
+        metrics.record(ORIGIN, "GET", 200, total(1));
+        metrics.record(ORIGIN, "GET", 204, total(1));
+        metrics.record(ORIGIN, "POST", 503, total(1));
+        metrics.record(ORIGIN, "GET", -1, total(1));
+
+        //then
+        assertThat(metrics.snapshot(ORIGIN, "GET", 2, Metrics.Phase.TOTAL).count()).isEqualTo(2);
+        assertThat(metrics.snapshot(ORIGIN, "POST", 5, Metrics.Phase.TOTAL).count()).isEqualTo(1);
+        assertThat(metrics.snapshot(ORIGIN, "GET", 0, Metrics.Phase.TOTAL).count()).isEqualTo(1);
+        assertThat(metrics.snapshot(ORIGIN, "GET", 5, Metrics.Phase.TOTAL)).isNull();
+        assertThat(metrics.snapshot()).hasSize(3 * Metrics.Phase.values().length);
+        assertThat(metrics.snapshot().get(0).method()).isEqualTo("GET");
+        assertThat(metrics.snapshot().get(0).statusClass()).isZero();
+        assertThat(metrics.snapshot().get(0).phase()).isEqualTo(Metrics.Phase.LOOKUP);
+    }
+
+    @Test
+    void testPhases() {
+        //given
+        Metrics metrics = Metrics.create();
+        Timings timings = new Timings(1, 2, 3, 4, 5, 15);
+
+        //when
+        metrics.record(ORIGIN, "GET", 200, timings);
+
+        //then
+        for (Metrics.Phase phase : Metrics.Phase.values()) {
+            assertThat(metrics.snapshot(ORIGIN, "GET", 2, phase).max()).isEqualTo(timings.duration(phase));
+        }
+        assertThat(timings.nanos(Metrics.Phase.HEADERS)).isEqualTo(4);
+    }
+
+    @Test
+    void testListener() {
+        //given
+        List<String> received = new ArrayList<>();
+        Metrics metrics = Metrics.create()
+                .withListener((origin, method, status, timings) -> {
+                    throw new IllegalStateException("failing listener");
+                })
+                .withListener((origin, method, status, timings) -> received.add(method + " " + status + " " + timings.totalNanos()));
+
+        //when
+        metrics.record(ORIGIN, "PUT", 201, total(42));
+
+        //then
+        assertThat(received).containsExactly("PUT 201 42");
+    }
+
+    @Test
+    void testConcurrentRecording() throws Exception {
+        //given
+        Metrics metrics = Metrics.create();
+
+        //when
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 100; i++) {
+                executor.execute(() -> {
+                    for (int j = 0; j < 100; j++) {
+                        metrics.record(ORIGIN, "GET", 200, total(1000));
+                    }
+                });
+            }
+        }
+
+        //then
+        assertThat(metrics.snapshot(ORIGIN, "GET", 2, Metrics.Phase.TOTAL).count()).isEqualTo(10_000);
+    }
+
+    @Test
+    void testReset() {
+        //given
+        Metrics metrics = Metrics.create();
+        metrics.record(ORIGIN, "GET", 200, total(1));
+
+        //when
+        metrics.reset();
+
+        //then
+        assertThat(metrics.snapshot()).isEmpty();
+        assertThat(metrics.snapshot(ORIGIN, "GET", 2, Metrics.Phase.TOTAL)).isNull();
+    }
+
+    @Test
+    void testInvalidArguments() {
+        //given
+        Metrics metrics = Metrics.create();
+        metrics.record(ORIGIN, "GET", 200, total(1));
+        Metrics.Snapshot snapshot = metrics.snapshot(ORIGIN, "GET", 2, Metrics.Phase.TOTAL);
+
+        //then
+        assertThatThrownBy(() -> snapshot.percentile(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> snapshot.percentile(1.5)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> metrics.withListener(null)).isInstanceOf(NullPointerException.class);
+    }
+
+    private static Timings total(long nanos) {
+        return new Timings(0, 0, 0, 0, 0, nanos);
+    }
+}
@@ -0,0 +1,68 @@
+package de.svenkubiak.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProfileTests {
+    @Test
+    void testWithReturnsCopy() {
+        //given
+        Profile profile = Profile.of("payments");
+
+        //when
+        Profile tuned = profile.withConnectTimeout(Duration.ofSeconds(1)).withPriority(32);
+
+        //then
+        assertThat(tuned).isNotSameAs(profile);
+        assertThat(tuned.name()).isEqualTo("payments");
+    }
+
+    @Test
+    void testEqualsByValue() {
+        //given
+        var executor = Executors.newVirtualThreadPerTaskExecutor();
+        Profile profile = Profile.of("payments").withConnectTimeout(Duration.ofSeconds(1)).withExecutor(executor).withTls(Tls.create().withProtocols("TLSv1.3"));
+
+        //when
+        Profile same = Profile.of("payments").withConnectTimeout(Duration.ofSeconds(1)).withExecutor(executor).withTls(Tls.create().withProtocols("TLSv1.3"));
+        Profile otherExecutor = Profile.of("payments").withConnectTimeout(Duration.ofSeconds(1)).withExecutor(Executors.newVirtualThreadPerTaskExecutor()).withTls(Tls.create().withProtocols("TLSv1.3"));
+
+        //then
+        assertThat(same).isEqualTo(profile).hasSameHashCodeAs(profile);
+        assertThat(otherExecutor).isNotEqualTo(profile);
+        assertThat(profile.withPriority(32)).isNotEqualTo(profile);
+        assertThat(Profile.of("orders").withConnectTimeout(Duration.ofSeconds(1))).isNotEqualTo(Profile.of("payments").withConnectTimeout(Duration.ofSeconds(1)));
+    }
+
+    @Test
+    void testInvalidPriority() {
+        assertThatThrownBy(() -> Profile.of("payments").withPriority(0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("priority must be between 1 and 256");
+        assertThatThrownBy(() -> Profile.of("payments").withPriority(257))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("priority must be between 1 and 256");
+    }
+
+    @Test
+    void testRegister() {
+        //given
+        Profile profile = Profile.of("registered").withConnectTimeout(Duration.ofSeconds(2));
+
+        //when
+        Http.register(profile);
+
+        //then
+        assertThat(Http.profile("registered")).isSameAs(profile);
+        assertThatThrownBy(() -> Http.profile("unknown"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("No profile registered");
+        assertThatThrownBy(() -> Http.get("https://example.com").withProfile("unknown"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
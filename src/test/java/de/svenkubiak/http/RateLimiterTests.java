@@ -0,0 +1,117 @@
+package de.svenkubiak.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpHeaders;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateLimiterTests {
+    @Test
+    void testBurst() {
+        //given
+        RateLimiter rateLimiter = RateLimiter.of(1).withBurst(3);
+
+        //then
+        assertThat(rateLimiter.tryAcquire()).isTrue();
+        assertThat(rateLimiter.tryAcquire()).isTrue();
+        assertThat(rateLimiter.tryAcquire()).isTrue();
+        assertThat(rateLimiter.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void testAcquireWaits() throws InterruptedException {
+        //given
+        RateLimiter rateLimiter = RateLimiter.of(10);
+
+        //when
+        long start = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            assertThat(rateLimiter.acquire()).isTrue();
+        }
+
+        //then
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(190));
+    }
+
+    @Test
+    void testReserveKeepsDelayWithBurst() {
+        //given
+        RateLimiter rateLimiter = RateLimiter.of(1).withBurst(10);
+        long delay = Duration.ofSeconds(2).toNanos();
+
+        //when
+        long first = rateLimiter.reserve(delay);
+        long second = rateLimiter.reserve(delay);
+
+        //then
+        assertThat(first).isGreaterThanOrEqualTo(delay);
+        assertThat(second).isGreaterThanOrEqualTo(delay);
+        assertThat(rateLimiter.reserve(Duration.ofSeconds(20).toNanos())).isGreaterThanOrEqualTo(Duration.ofSeconds(20).toNanos());
+    }
+
+    @Test
+    void testMaxWaitFailsFast() throws InterruptedException {
+        //given
+        RateLimiter rateLimiter = RateLimiter.of(1).withMaxWait(Duration.ofMillis(100));
+
+        //when
+        long start = System.nanoTime();
+        boolean first = rateLimiter.acquire();
+        boolean second = rateLimiter.acquire();
+
+        //then
+        assertThat(first).isTrue();
+        assertThat(second).isFalse();
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(100));
+    }
+
+    @Test
+    void testRetryAfter() {
+        //given
+        RateLimiter rateLimiter = RateLimiter.of(100).withMaxWait(Duration.ZERO);
+
+        //when
+        rateLimiter.update(429, headers(Map.of("Retry-After", "30")));
+
+        //then
+        assertThat(rateLimiter.tryAcquire()).isFalse();
+        assertThat(rateLimiter.reserve(Duration.ofSeconds(31).toNanos())).isPositive();
+    }
+
+    @Test
+    void testRateLimitHeaders() {
+        //given
+        RateLimiter rateLimiter = RateLimiter.of(100);
+        RateLimiter structured = RateLimiter.of(100);
+        RateLimiter remaining = RateLimiter.of(100);
+
+        //when
+        rateLimiter.update(200, headers(Map.of("RateLimit-Remaining", "0", "RateLimit-Reset", "30")));
+        structured.update(200, headers(Map.of("RateLimit", "limit=100, remaining=0, reset=30")));
+        remaining.update(200, headers(Map.of("RateLimit-Remaining", "5", "RateLimit-Reset", "30")));
+
+        //then
+        assertThat(rateLimiter.tryAcquire()).isFalse();
+        assertThat(structured.tryAcquire()).isFalse();
+        assertThat(remaining.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThatThrownBy(() -> RateLimiter.of(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RateLimiter.of(1).withBurst(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RateLimiter.of(1).withMaxWait(Duration.ofSeconds(-1))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static HttpHeaders headers(Map<String, String> headers) {
+        Map<String, List<String>> values = new HashMap<>();
+        headers.forEach((key, value) -> values.put(key, List.of(value)));
+        return HttpHeaders.of(values, (key, value) -> true);
+    }
+}
@@ -0,0 +1,310 @@
+package de.svenkubiak.http;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.http.HttpHeaders;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ResponseCacheTests {
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Test
+    void testExpiresAt() {
+        assertThat(ResponseCache.expiresAt(headers(Map.of("Cache-Control", "public, max-age=60")), NOW)).isEqualTo(NOW + 60_000);
+        assertThat(ResponseCache.expiresAt(headers(Map.of("Cache-Control", "max-age=60", "Age", "20")), NOW)).isEqualTo(NOW + 40_000);
+        assertThat(ResponseCache.expiresAt(headers(Map.of("Cache-Control", "no-cache, max-age=60")), NOW)).isEqualTo(NOW);
+        assertThat(ResponseCache.expiresAt(headers(Map.of("Cache-Control", "no-store")), NOW)).isEqualTo(-1);
+        assertThat(ResponseCache.expiresAt(headers(Map.of(
+                "Date", "Wed, 21 Oct 2015 07:28:00 GMT",
+                "Expires", "Wed, 21 Oct 2015 07:30:00 GMT")), NOW)).isEqualTo(NOW + 120_000);
+        assertThat(ResponseCache.expiresAt(headers(Map.of("Expires", "0")), NOW)).isEqualTo(NOW);
+        assertThat(ResponseCache.expiresAt(headers(Map.of()), NOW)).isEqualTo(NOW);
+    }
+
+    @Test
+    void testVary() {
+        //given
+        ResponseCache cache = ResponseCache.of(10_000);
+        HttpHeaders headers = headers(Map.of("Cache-Control", "max-age=60", "Vary", "Accept-Language"));
+
+        //when
+        cache.put("https://example.com", name -> "accept-language".equals(name) ? "de" : null, 200, headers, body("hallo"), NOW);
+
+        //then
+        assertThat(cache.get("https://example.com", name -> "de")).isNotNull();
+        assertThat(cache.get("https://example.com", name -> "en")).isNull();
+        assertThat(ResponseCache.vary(headers(Map.of("Vary", "*")))).isNull();
+    }
+
+    @Test
+    void testNotCacheable() {
+        //given
+        ResponseCache cache = ResponseCache.of(10_000);
+
+        //then
+        assertThat(cache.put("a", name -> null, 200, headers(Map.of("Cache-Control", "no-store")), body("a"), NOW)).isNull();
+        assertThat(cache.put("b", name -> null, 200, headers(Map.of()), body("b"), NOW)).isNull();
+        assertThat(cache.put("c", name -> null, 404, headers(Map.of("Cache-Control", "max-age=60")), body("c"), NOW)).isNull();
+        assertThat(cache.put("d", name -> null, 200, headers(Map.of("ETag", "\"d\"")), body("d"), NOW)).isNotNull();
+        assertThat(cache.count()).isEqualTo(1);
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsedBySize() {
+        //given
+        ResponseCache cache = ResponseCache.of(2_000);
+        HttpHeaders headers = headers(Map.of("Cache-Control", "max-age=60"));
+
+        //when
+        cache.put("a", name -> null, 200, headers, ByteBuffer.allocate(600), NOW);
+        cache.put("b", name -> null, 200, headers, ByteBuffer.allocate(600), NOW);
+        cache.get("a", name -> null);
+        cache.put("c", name -> null, 200, headers, ByteBuffer.allocate(600), NOW);
+
+        //then
+        assertThat(cache.get("a", name -> null)).isNotNull();
+        assertThat(cache.get("b", name -> null)).isNull();
+        assertThat(cache.get("c", name -> null)).isNotNull();
+        assertThat(cache.size()).isLessThanOrEqualTo(2_000);
+        assertThat(cache.put("d", name -> null, 200, headers, ByteBuffer.allocate(3_000), NOW)).isNull();
+    }
+
+    @Test
+    void testEvictionPrunesUrlIndex() {
+        //given
+        ResponseCache cache = ResponseCache.of(5_000);
+        HttpHeaders headers = headers(Map.of("Cache-Control", "max-age=60", "Vary", "Accept-Language"));
+
+        //when
+        for (int i = 0; i < 1_000; i++) {
+            cache.put("https://example.com/" + i, name -> "de", 200, headers, body("hallo"), NOW);
+        }
+
+        //then
+        assertThat(cache.size()).isLessThanOrEqualTo(5_000);
+        assertThat(cache.urls()).isEqualTo(cache.count()).isLessThan(1_000);
+
+        //when
+        int urls = cache.urls();
+        cache.invalidate("https://example.com/999");
+
+        //then
+        assertThat(cache.urls()).isEqualTo(urls - 1);
+
+        //when
+        cache.clear();
+
+        //then
+        assertThat(cache.urls()).isZero();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void testRevalidated() {
+        //given
+        ResponseCache cache = ResponseCache.of(10_000);
+        ResponseCache.Entry entry = cache.put("a", name -> null, 200,
+                headers(Map.of("ETag", "\"1\"", "Content-Type", "text/plain")), body("a"), NOW);
+
+        //when
+        ResponseCache.Entry updated = cache.revalidated(entry, headers(Map.of("Cache-Control", "max-age=60")), NOW);
+
+        //then
+        assertThat(updated.isFresh(NOW + 1_000)).isTrue();
+        assertThat(updated.validator("Content-Type")).isEqualTo("text/plain");
+        assertThat(cache.get("a", name -> null)).isEqualTo(updated);
+    }
+
+    @Test
+    void testInvalidate() {
+        //given
+        ResponseCache cache = ResponseCache.of(10_000);
+        cache.put("a", name -> "x", 200, headers(Map.of("Cache-Control", "max-age=60", "Vary", "Accept")), body("a"), NOW);
+
+        //when
+        cache.invalidate("a");
+
+        //then
+        assertThat(cache.count()).isZero();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void testDiskTierSurvivesRestart(@TempDir Path directory) {
+        //given
+        ResponseCache cache = ResponseCache.of(100).withDiskTier(directory, 10_000);
+        HttpHeaders headers = headers(Map.of("Cache-Control", "max-age=60", "Content-Type", "text/plain"));
+
+        //when
+        cache.put("a", name -> null, 200, headers, body("persisted"), NOW);
+        ResponseCache.Entry entry = ResponseCache.of(100).withDiskTier(directory, 10_000).get("a", name -> null);
+
+        //then
+        assertThat(cache.count()).isZero();
+        assertThat(cache.diskSize()).isPositive();
+        assertThat(entry).isNotNull();
+        assertThat(entry.body().isDirect()).isTrue();
+        assertThat(StandardCharsets.UTF_8.decode(entry.body()).toString()).isEqualTo("persisted");
+        assertThat(entry.validator("Content-Type")).isEqualTo("text/plain");
+        assertThat(entry.isFresh(NOW + 1_000)).isTrue();
+    }
+
+    @Test
+    void testDiskTierEvictsAndCleansUp(@TempDir Path directory) throws IOException {
+        //given
+        Files.writeString(directory.resolve("partial.entry.1.tmp"), "partial");
+        ResponseCache cache = ResponseCache.of(100).withDiskTier(directory, 1_500);
+        HttpHeaders headers = headers(Map.of("Cache-Control", "max-age=60"));
+
+        //when
+        cache.put("a", name -> null, 200, headers, ByteBuffer.allocate(1_000), NOW);
+        cache.put("b", name -> null, 200, headers, ByteBuffer.allocate(1_000), NOW);
+
+        //then
+        assertThat(cache.get("a", name -> null)).isNull();
+        assertThat(cache.get("b", name -> null)).isNotNull();
+        assertThat(cache.diskSize()).isLessThanOrEqualTo(1_500);
+        try (var files = Files.list(directory)) {
+            assertThat(files.map(file -> file.getFileName().toString()))
+                    .hasSize(2)
+                    .noneMatch(name -> name.endsWith(".tmp"));
+        }
+    }
+
+    @Test
+    void testDiskTierPromotesHitsToMemory(@TempDir Path directory) {
+        //given
+        HttpHeaders headers = headers(Map.of("Cache-Control", "max-age=60"));
+        ResponseCache.of(100).withDiskTier(directory, 10_000).put("a", name -> null, 200, headers, body("promoted"), NOW);
+        ResponseCache cache = ResponseCache.of(10_000).withDiskTier(directory, 10_000);
+
+        //when
+        ResponseCache.Entry first = cache.get("a", name -> null);
+        ResponseCache.Entry second = cache.get("a", name -> null);
+
+        //then
+        assertThat(first).isNotNull();
+        assertThat(cache.count()).isEqualTo(1);
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    void testDiskTierThrottlesRecencyUpdates(@TempDir Path directory) throws IOException {
+        //given
+        ResponseCache.of(100).withDiskTier(directory, 10_000)
+                .put("a", name -> null, 200, headers(Map.of("Cache-Control", "max-age=60")), body("a"), NOW);
+        Path file;
+        try (var files = Files.list(directory)) {
+            file = files.filter(path -> path.toString().endsWith(".entry")).findFirst().orElseThrow();
+        }
+        FileTime old = FileTime.fromMillis(NOW - 86_400_000L);
+        Files.setLastModifiedTime(file, old);
+        ResponseCache cache = ResponseCache.of(100).withDiskTier(directory, 10_000);
+
+        //when
+        cache.get("a", name -> null);
+
+        //then
+        assertThat(Files.getLastModifiedTime(file)).isGreaterThan(old);
+
+        //when
+        Files.setLastModifiedTime(file, old);
+        cache.get("a", name -> null);
+
+        //then
+        assertThat(Files.getLastModifiedTime(file)).isEqualTo(old);
+    }
+
+    @Test
+    void testDiskTierRevalidationKeepsBody(@TempDir Path directory) throws IOException {
+        //given
+        ResponseCache cache = ResponseCache.of(10_000).withDiskTier(directory, 10_000);
+        ResponseCache.Entry entry = cache.put("a", name -> null, 200,
+                headers(Map.of("ETag", "\"1\"", "Content-Type", "text/plain")), body("kept"), NOW);
+        Path file;
+        try (var files = Files.list(directory)) {
+            file = files.filter(path -> path.toString().endsWith(".entry")).findFirst().orElseThrow();
+        }
+        Object fileKey = Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+
+        //when
+        cache.revalidated(entry, headers(Map.of("Cache-Control", "max-age=60")), NOW);
+        ResponseCache.Entry restored = ResponseCache.of(100).withDiskTier(directory, 10_000).get("a", name -> null);
+
+        //then
+        assertThat(Files.readAttributes(file, BasicFileAttributes.class).fileKey()).isEqualTo(fileKey);
+        assertThat(restored).isNotNull();
+        assertThat(restored.isFresh(NOW + 1_000)).isTrue();
+        assertThat(restored.validator("Content-Type")).isEqualTo("text/plain");
+        assertThat(StandardCharsets.UTF_8.decode(restored.body()).toString()).isEqualTo("kept");
+    }
+
+    @Test
+    void testDiskTierIgnoresMismatchingFiles(@TempDir Path directory) throws IOException {
+        //given
+        ResponseCache.of(100).withDiskTier(directory, 10_000)
+                .put("a", name -> null, 200, headers(Map.of("Cache-Control", "max-age=60")), body("a"), NOW);
+        Path meta;
+        try (var files = Files.list(directory)) {
+            meta = files.filter(path -> path.toString().endsWith(".meta")).findFirst().orElseThrow();
+        }
+        byte[] previous = Files.readAllBytes(meta);
+        ResponseCache.of(100).withDiskTier(directory, 10_000)
+                .put("a", name -> null, 200, headers(Map.of("Cache-Control", "max-age=60")), body("b"), NOW);
+        Files.write(meta, previous);
+
+        //when
+        ResponseCache.Entry entry = ResponseCache.of(100).withDiskTier(directory, 10_000).get("a", name -> null);
+
+        //then
+        assertThat(entry).isNull();
+        try (var files = Files.list(directory)) {
+            assertThat(files.count()).isZero();
+        }
+    }
+
+    @Test
+    void testDiskTierIgnoresCorruptFiles(@TempDir Path directory) throws IOException {
+        //given
+        ResponseCache cache = ResponseCache.of(100).withDiskTier(directory, 10_000);
+        cache.put("a", name -> null, 200, headers(Map.of("Cache-Control", "max-age=60")), body("a"), NOW);
+        try (var files = Files.list(directory)) {
+            Files.writeString(files.findFirst().orElseThrow(), "corrupt");
+        }
+
+        //when
+        ResponseCache.Entry entry = ResponseCache.of(100).withDiskTier(directory, 10_000).get("a", name -> null);
+
+        //then
+        assertThat(entry).isNull();
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThatThrownBy(() -> ResponseCache.of(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ResponseCache.of(1).withDiskTier(Path.of("target"), 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static ByteBuffer body(String body) {
+        return ByteBuffer.wrap(body.getBytes());
+    }
+
+    private static HttpHeaders headers(Map<String, String> headers) {
+        Map<String, List<String>> values = new HashMap<>();
+        headers.forEach((key, value) -> values.put(key, List.of(value)));
+        return HttpHeaders.of(values, (key, value) -> true);
+    }
+}
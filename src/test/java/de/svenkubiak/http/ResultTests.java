@@ -3,7 +3,19 @@ package de.svenkubiak.http;
 import org.apache.hc.core5.http.HttpStatus;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
-
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpHeaders;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -109,4 +121,109 @@ class ResultTests {
 
         assertThat(result.binaryBody()).containsExactly(1, 2, 3);
     }
+
+    @Test
+    void testBinaryBodyAsBuffer() {
+        //given
+        byte[] original = new byte[]{1, 2, 3};
+        Result result = Result.create().withBinaryBody(original);
+
+        //when
+        ByteBuffer buffer = result.binaryBodyAsBuffer();
+        buffer.get();
+
+        //then
+        assertThat(buffer.isReadOnly()).isTrue();
+        assertThat(result.binaryBodyAsBuffer().remaining()).isEqualTo(3);
+        assertThat(Result.create().binaryBodyAsBuffer()).isNull();
+    }
+
+    @Test
+    void testBinaryBodyAsStream() throws IOException {
+        //given
+        Result result = Result.create().withBinaryBody(new byte[]{1, 2, 3});
+
+        //when
+        try (InputStream inputStream = result.binaryBodyAsStream()) {
+            //then
+            assertThat(inputStream.readAllBytes()).containsExactly(1, 2, 3);
+        }
+        assertThat(Result.create().binaryBodyAsStream()).isNull();
+    }
+
+    @Test
+    void testTransferTo() throws IOException {
+        //given
+        Result result = Result.create().withBinaryBody(new byte[]{1, 2, 3});
+        var outputStream = new ByteArrayOutputStream();
+        var channelOutput = new ByteArrayOutputStream();
+
+        //when
+        long streamed = result.transferTo(outputStream);
+        long written = result.transferTo(Channels.newChannel(channelOutput));
+
+        //then
+        assertThat(streamed).isEqualTo(3);
+        assertThat(written).isEqualTo(3);
+        assertThat(outputStream.toByteArray()).containsExactly(1, 2, 3);
+        assertThat(channelOutput.toByteArray()).containsExactly(1, 2, 3);
+        assertThat(result.binaryBody()).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void testTransferToFromFile(@TempDir Path directory) throws IOException {
+        //given
+        Path file = Files.write(directory.resolve("body.bin"), new byte[]{4, 5, 6});
+        Result result = Result.create().withFile(file);
+        var outputStream = new ByteArrayOutputStream();
+        var channelOutput = new ByteArrayOutputStream();
+
+        //when
+        long streamed = result.transferTo(outputStream);
+        long written = result.transferTo(Channels.newChannel(channelOutput));
+
+        //then
+        assertThat(streamed).isEqualTo(3);
+        assertThat(written).isEqualTo(3);
+        assertThat(outputStream.toByteArray()).containsExactly(4, 5, 6);
+        assertThat(channelOutput.toByteArray()).containsExactly(4, 5, 6);
+    }
+
+    @Test
+    void testWithEncodedBody() {
+        //given
+        byte[] latin1 = "Grüße".getBytes(StandardCharsets.ISO_8859_1);
+
+        //when
+        Result result = Result.create().withBody(latin1, StandardCharsets.ISO_8859_1);
+
+        //then
+        assertThat(result.body()).isEqualTo("Grüße");
+        assertThat(result.error()).isEqualTo("Grüße");
+
+        //when
+        result = result.withBody("replaced");
+
+        //then
+        assertThat(result.body()).isEqualTo("replaced");
+    }
+
+    @Test
+    void testWithHeaders() {
+        //given
+        HttpHeaders headers = HttpHeaders.of(
+                Map.of("Content-Type", List.of("text/plain"), "Set-Cookie", List.of("a=1", "b=2")),
+                (key, value) -> true);
+
+        //when
+        Result result = Result.create().withHeaders(headers).withHeader("x-local", "local");
+
+        //then
+        assertThat(result.header("content-type")).isEqualTo("text/plain");
+        assertThat(result.header("CONTENT-TYPE")).isEqualTo("text/plain");
+        assertThat(result.headers("set-cookie")).containsExactly("a=1", "b=2");
+        assertThat(result.header("X-Local")).isEqualTo("local");
+        assertThat(result.header("x-missing")).isNull();
+        assertThat(result.headers("x-missing")).isEmpty();
+    }
 }
@@ -0,0 +1,107 @@
+package de.svenkubiak.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RetryTests {
+    @Test
+    void testBackoffIsCapped() {
+        //given
+        Retry retry = Retry.of(10).withBackoff(Duration.ofMillis(100), Duration.ofMillis(300));
+
+        //when
+        Duration delay = retry.next(8, "GET", null);
+
+        //then
+        assertThat(delay).isNotNull();
+        assertThat(delay).isBetween(Duration.ZERO, Duration.ofMillis(300));
+    }
+
+    @Test
+    void testMaxAttempts() {
+        //given
+        Retry retry = Retry.of(2);
+
+        //then
+        assertThat(retry.next(1, "GET", null)).isNotNull();
+        assertThat(retry.next(2, "GET", null)).isNull();
+    }
+
+    @Test
+    void testNonIdempotentMethods() {
+        //given
+        Retry retry = Retry.of(3);
+
+        //then
+        assertThat(retry.next(1, "POST", null)).isNull();
+        assertThat(retry.next(1, "PATCH", null)).isNull();
+        assertThat(retry.next(1, "PUT", null)).isNotNull();
+        assertThat(retry.retryNonIdempotent().next(1, "POST", null)).isNotNull();
+    }
+
+    @Test
+    void testRetryAfter() {
+        //given
+        Retry retry = Retry.of(3).withBackoff(Duration.ofMillis(100), Duration.ofSeconds(5));
+
+        //then
+        assertThat(retry.next(1, "GET", "2")).isEqualTo(Duration.ofSeconds(2));
+        assertThat(retry.next(1, "GET", "60")).isNull();
+    }
+
+    @Test
+    void testInvalidBackoffKeepsPolicy() {
+        //given
+        Retry retry = Retry.of(3).withBackoff(Duration.ofMillis(100), Duration.ofSeconds(5));
+
+        //when
+        assertThatThrownBy(() -> retry.withBackoff(Duration.ofSeconds(5), Duration.ofSeconds(1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("baseDelay must not be negative or greater than maxDelay");
+
+        //then
+        assertThat(retry.next(1, "GET", "2")).isEqualTo(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void testStatus() {
+        //given
+        Retry retry = Retry.of(3);
+
+        //then
+        assertThat(retry.retryable(503)).isTrue();
+        assertThat(retry.retryable(500)).isFalse();
+        assertThat(retry.withStatus(429).retryable(429)).isTrue();
+        assertThat(retry.retryable(503)).isFalse();
+    }
+
+    @Test
+    void testBudget() {
+        //given
+        Retry retry = Retry.of(10).withBudget(0.5, 2);
+
+        //then
+        assertThat(retry.next(1, "GET", null)).isNotNull();
+        assertThat(retry.next(1, "GET", null)).isNotNull();
+        assertThat(retry.next(1, "GET", null)).isNull();
+
+        //when
+        retry.onRequest();
+        retry.onRequest();
+
+        //then
+        assertThat(retry.availableBudget()).isEqualTo(1.0);
+        assertThat(retry.next(1, "GET", null)).isNotNull();
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThatThrownBy(() -> Retry.of(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Retry.of(2).withBudget(0.1, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Retry.of(2).withBackoff(Duration.ofSeconds(2), Duration.ofSeconds(1))).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,89 @@
+package de.svenkubiak.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpClient;
+import java.security.KeyStore;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TlsTests {
+    @Test
+    void testSslContextIsCached() {
+        //given
+        Tls tls = Tls.create().withSessionCache(500, Duration.ofMinutes(10));
+
+        //when
+        var first = tls.sslContext();
+        var second = tls.sslContext();
+
+        //then
+        assertThat(first).isSameAs(second);
+        assertThat(first.getClientSessionContext().getSessionCacheSize()).isEqualTo(500);
+        assertThat(first.getClientSessionContext().getSessionTimeout()).isEqualTo(600);
+    }
+
+    @Test
+    void testEqualsByValue() throws Exception {
+        //given
+        KeyStore trustStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        trustStore.load(null, null);
+        Tls tls = Tls.create().withTrustStore(trustStore).withProtocols("TLSv1.3").withSessionCache(500, Duration.ofMinutes(10));
+
+        //when
+        Tls same = Tls.create().withTrustStore(trustStore).withProtocols("TLSv1.3").withSessionCache(500, Duration.ofMinutes(10));
+        Tls other = Tls.create().withTrustStore(trustStore).withProtocols("TLSv1.2").withSessionCache(500, Duration.ofMinutes(10));
+
+        //then
+        assertThat(same).isEqualTo(tls).hasSameHashCodeAs(tls);
+        assertThat(other).isNotEqualTo(tls);
+    }
+
+    @Test
+    void testSslParameters() {
+        //given
+        Tls tls = Tls.create().withProtocols("TLSv1.3");
+
+        //then
+        assertThat(Tls.create().sslParameters()).isNull();
+        assertThat(tls.sslParameters().getProtocols()).containsExactly("TLSv1.3");
+    }
+
+    @Test
+    void testWithTrustAndKeyStore() throws Exception {
+        //given
+        KeyStore empty = KeyStore.getInstance("PKCS12");
+        empty.load(null, null);
+
+        //when
+        Tls tls = Tls.create().withTrustStore(empty).withKeyStore(empty, "secret".toCharArray());
+
+        //then
+        assertThat(tls.sslContext()).isNotNull();
+    }
+
+    @Test
+    void testProfileUsesTls() {
+        //given
+        Tls tls = Tls.create().withProtocols("TLSv1.3");
+        Profile profile = Profile.of("tls").withTls(tls);
+        HttpClient.Builder builder = HttpClient.newBuilder();
+
+        //when
+        profile.apply(builder);
+
+        //then
+        try (HttpClient client = builder.build()) {
+            assertThat(client.sslContext()).isSameAs(tls.sslContext());
+            assertThat(client.sslParameters().getProtocols()).containsExactly("TLSv1.3");
+        }
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThatThrownBy(() -> Tls.create().withSessionCache(-1, Duration.ofMinutes(1))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Tls.create().withProtocols((String[]) null)).isInstanceOf(NullPointerException.class);
+    }
+}
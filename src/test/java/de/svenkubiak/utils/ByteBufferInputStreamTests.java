@@ -0,0 +1,45 @@
+package de.svenkubiak.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ByteBufferInputStreamTests {
+    @Test
+    void testRead() throws IOException {
+        //given
+        ByteBuffer buffer = ByteBuffer.allocateDirect(4).put(new byte[]{1, 2, (byte) 0xFF, 4}).flip();
+
+        //when
+        try (var inputStream = new ByteBufferInputStream(buffer)) {
+            //then
+            assertThat(inputStream.available()).isEqualTo(4);
+            assertThat(inputStream.read()).isEqualTo(1);
+            assertThat(inputStream.skip(1)).isEqualTo(1);
+            assertThat(inputStream.read()).isEqualTo(0xFF);
+            assertThat(inputStream.readAllBytes()).containsExactly(4);
+            assertThat(inputStream.read()).isEqualTo(-1);
+        }
+        assertThat(buffer.position()).isZero();
+    }
+
+    @Test
+    void testTransferTo() throws IOException {
+        //given
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[]{0, 1, 2, 3, 4}, 1, 3);
+        var outputStream = new ByteArrayOutputStream();
+
+        //when
+        try (var inputStream = new ByteBufferInputStream(buffer)) {
+            long transferred = inputStream.transferTo(outputStream);
+
+            //then
+            assertThat(transferred).isEqualTo(3);
+            assertThat(outputStream.toByteArray()).containsExactly(1, 2, 3);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package de.svenkubiak.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GzipCompressingInputStreamTests {
+    @Test
+    void testCompress() throws IOException {
+        //given
+        byte[] data = new byte[100_000];
+        new Random(42).nextBytes(data);
+        for (int i = 0; i < data.length / 2; i++) {
+            data[i] = (byte) (i % 7);
+        }
+
+        //when
+        byte[] compressed;
+        try (var inputStream = new GzipCompressingInputStream(new ByteArrayInputStream(data))) {
+            compressed = inputStream.readAllBytes();
+        }
+
+        //then
+        assertThat(compressed.length).isLessThan(data.length);
+        assertThat(new GZIPInputStream(new ByteArrayInputStream(compressed)).readAllBytes()).isEqualTo(data);
+    }
+
+    @Test
+    void testCompressEmpty() throws IOException {
+        //when
+        byte[] compressed;
+        try (var inputStream = new GzipCompressingInputStream(new ByteArrayInputStream(new byte[0]))) {
+            compressed = inputStream.readAllBytes();
+        }
+
+        //then
+        assertThat(new GZIPInputStream(new ByteArrayInputStream(compressed)).readAllBytes()).isEmpty();
+    }
+}
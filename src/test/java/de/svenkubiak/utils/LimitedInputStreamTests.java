@@ -0,0 +1,50 @@
+package de.svenkubiak.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LimitedInputStreamTests {
+    @Test
+    void testWithinLimit() throws IOException {
+        //given
+        InputStream inputStream = new LimitedInputStream(new ByteArrayInputStream("hello".getBytes(StandardCharsets.UTF_8)), 5);
+
+        //when
+        byte[] data = inputStream.readAllBytes();
+
+        //then
+        assertThat(new String(data, StandardCharsets.UTF_8)).isEqualTo("hello");
+    }
+
+    @Test
+    void testExceedsLimit() {
+        //given
+        InputStream inputStream = new LimitedInputStream(new ByteArrayInputStream("hello, world!".getBytes(StandardCharsets.UTF_8)), 5);
+
+        //then
+        assertThatThrownBy(inputStream::readAllBytes)
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("exceeds maximum size");
+    }
+
+    @Test
+    void testSkipCountsTowardsLimit() throws IOException {
+        //given
+        InputStream inputStream = new LimitedInputStream(new ByteArrayInputStream("hello, world!".getBytes(StandardCharsets.UTF_8)), 5);
+
+        //when
+        inputStream.skip(5);
+
+        //then
+        assertThatThrownBy(inputStream::read)
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("exceeds maximum size");
+    }
+}
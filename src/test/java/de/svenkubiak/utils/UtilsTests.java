@@ -1,10 +1,26 @@
 package de.svenkubiak.utils;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -152,4 +168,171 @@ class UtilsTests {
                 .isInstanceOf(URISyntaxException.class)
                 .hasMessageContaining("Only http and https URLs are allowed");
     }
+
+    @Test
+    void testWriteLimited(@TempDir Path directory) throws IOException {
+        //given
+        Path target = directory.resolve("target.bin");
+        Files.writeString(target, "old content");
+
+        //when
+        Path written = Utils.writeLimited(new ByteArrayInputStream("hello".getBytes(StandardCharsets.UTF_8)), target, 5);
+
+        //then
+        assertThat(written).isEqualTo(target);
+        assertThat(Files.readString(target)).isEqualTo("hello");
+        try (var files = Files.list(directory)) {
+            assertThat(files).containsExactly(target);
+        }
+    }
+
+    @Test
+    void testWriteLimitedRemovesPartialFile(@TempDir Path directory) throws IOException {
+        //given
+        Path target = directory.resolve("target.bin");
+
+        //then
+        assertThatThrownBy(() -> Utils.writeLimited(new ByteArrayInputStream("hello, world!".getBytes(StandardCharsets.UTF_8)), target, 5))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("exceeds maximum size");
+        try (var files = Files.list(directory)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void testReadLimitedWithContentLength() throws IOException {
+        //given
+        byte[] data = "hello".getBytes(StandardCharsets.UTF_8);
+
+        //when
+        byte[] read = Utils.readLimited(new ByteArrayInputStream(data), data.length, 5);
+
+        //then
+        assertThat(read).isEqualTo(data);
+    }
+
+    @Test
+    void testReadLimitedRejectsContentLengthBeforeReading() {
+        //given
+        var inputStream = new ByteArrayInputStream("hello, world!".getBytes(StandardCharsets.UTF_8));
+
+        //then
+        assertThatThrownBy(() -> Utils.readLimited(inputStream, 13, 5))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("exceeds maximum size");
+        assertThat(inputStream.available()).isEqualTo(13);
+    }
+
+    @Test
+    void testReadLimitedWithPrematureEnd() {
+        assertThatThrownBy(() -> Utils.readLimited(new ByteArrayInputStream(new byte[3]), 5, 10))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("ended after 3 of 5 bytes");
+    }
+
+    @Test
+    void testReadLimitedWithUnknownLength() throws IOException {
+        //given
+        byte[] data = new byte[100_000];
+        new Random(42).nextBytes(data);
+
+        //when
+        byte[] read = Utils.readLimited(new ByteArrayInputStream(data), -1, data.length);
+        byte[] readAgain = Utils.readLimited(new ByteArrayInputStream(data), data.length);
+
+        //then
+        assertThat(read).isEqualTo(data);
+        assertThat(readAgain).isEqualTo(data);
+    }
+
+    @Test
+    void testReadLimitedWithUnknownLengthExceeded() {
+        assertThatThrownBy(() -> Utils.readLimited(new ByteArrayInputStream(new byte[100_000]), -1, 99_999))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("exceeds maximum size");
+    }
+
+    @Test
+    void testReadLimitedWithEmptyStream() throws IOException {
+        assertThat(Utils.readLimited(new ByteArrayInputStream(new byte[0]), -1, 10)).isEmpty();
+    }
+
+    @Test
+    void testCharset() {
+        assertThat(Utils.charset(null)).isEqualTo(StandardCharsets.UTF_8);
+        assertThat(Utils.charset("application/json")).isEqualTo(StandardCharsets.UTF_8);
+        assertThat(Utils.charset("text/html; charset=ISO-8859-1")).isEqualTo(StandardCharsets.ISO_8859_1);
+        assertThat(Utils.charset("text/plain;CHARSET=\"utf-16\"")).isEqualTo(StandardCharsets.UTF_16);
+        assertThat(Utils.charset("text/plain; charset=does-not-exist")).isEqualTo(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testDecode() {
+        //given
+        byte[] data = "xhello".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer heap = ByteBuffer.wrap(data, 1, 5);
+        ByteBuffer direct = ByteBuffer.allocateDirect(5).put(data, 1, 5).flip();
+
+        //then
+        assertThat(Utils.decode(heap, StandardCharsets.UTF_8)).isEqualTo("hello");
+        assertThat(Utils.decode(direct, StandardCharsets.UTF_8)).isEqualTo("hello");
+        assertThat(direct.remaining()).isEqualTo(5);
+    }
+
+    @Test
+    void testDecompress() throws IOException {
+        //given
+        byte[] data = "hello, world!".repeat(10).getBytes(StandardCharsets.UTF_8);
+        var gzip = new ByteArrayOutputStream();
+        try (var outputStream = new GZIPOutputStream(gzip)) {
+            outputStream.write(data);
+        }
+        var zlib = new ByteArrayOutputStream();
+        try (var outputStream = new DeflaterOutputStream(zlib)) {
+            outputStream.write(data);
+        }
+        var raw = new ByteArrayOutputStream();
+        try (var outputStream = new DeflaterOutputStream(raw, new Deflater(Deflater.DEFAULT_COMPRESSION, true))) {
+            outputStream.write(data);
+        }
+
+        //then
+        assertThat(Utils.decompress(new ByteArrayInputStream(gzip.toByteArray()), "gzip").readAllBytes()).isEqualTo(data);
+        assertThat(Utils.decompress(new ByteArrayInputStream(zlib.toByteArray()), "deflate").readAllBytes()).isEqualTo(data);
+        assertThat(Utils.decompress(new ByteArrayInputStream(raw.toByteArray()), "deflate").readAllBytes()).isEqualTo(data);
+    }
+
+    @Test
+    void testCountingInputStream() throws IOException {
+        //given
+        var inputStream = new CountingInputStream(new ByteArrayInputStream(new byte[10]));
+
+        //when
+        inputStream.read();
+        inputStream.skip(2);
+        inputStream.readAllBytes();
+
+        //then
+        assertThat(inputStream.count()).isEqualTo(10);
+    }
+
+    @Test
+    void testRetryAfter() {
+        //given
+        String date = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(30));
+
+        //then
+        assertThat(Utils.retryAfter("5")).isEqualTo(Duration.ofSeconds(5));
+        assertThat(Utils.retryAfter(date)).isBetween(Duration.ofSeconds(25), Duration.ofSeconds(30));
+        assertThat(Utils.retryAfter("Wed, 21 Oct 2015 07:28:00 GMT")).isEqualTo(Duration.ZERO);
+        assertThat(Utils.retryAfter("soon")).isNull();
+        assertThat(Utils.retryAfter(null)).isNull();
+    }
+
+    @Test
+    void testSSLContextIsCached() {
+        assertThat(Utils.getSSLContext()).isNotNull();
+        assertThat(Utils.getSSLContext()).isSameAs(Utils.getSSLContext());
+    }
 }